@@ -0,0 +1,183 @@
+package test.app;
+
+import tz.base.common.BufferPool;
+import tz.base.transport.sock.Sock;
+import tz.base.transport.sock.TcpSock;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static test.app.Check.check;
+import static test.app.Check.equal;
+
+/**
+ * Check of BufferPool size classes, reuse and cache limit. Socket buffers
+ * must grow when they are filled, shrink when they stay idle and go back to
+ * the pool on close :
+ *
+ *     java test.app.BufferPoolCheck
+ */
+public class BufferPoolCheck
+{
+    private static final int KB = 1024;
+
+    public static void main(String[] args) throws Exception
+    {
+        checkPool();
+        checkSock();
+
+        System.out.println("BufferPoolCheck passed");
+    }
+
+    private static void checkPool()
+    {
+        final BufferPool pool = new BufferPool(16 * KB, 4 * KB * KB, KB * KB);
+
+        equal(16 * KB, pool.sizeOf(1), "Size below min");
+        equal(16 * KB, pool.sizeOf(16 * KB), "Size of min");
+        equal(32 * KB, pool.sizeOf(16 * KB + 1), "Size above min");
+        equal(4 * KB * KB, pool.sizeOf(10 * KB * KB), "Size above max");
+
+        ByteBuffer buf = pool.acquire(20 * KB);
+        equal(32 * KB, buf.capacity(), "Capacity");
+        check(buf.isDirect(), "Buffer is not direct");
+        equal(32 * KB, pool.getUsedBytes(), "Used bytes");
+        equal(32 * KB, pool.getAllocatedBytes(), "Allocated bytes");
+
+        buf.position(100);
+        pool.release(buf);
+        equal(0, pool.getUsedBytes(), "Used bytes after release");
+        equal(32 * KB, pool.getCachedBytes(), "Cached bytes after release");
+
+        //Same size class is served from the cache, cleared
+        ByteBuffer reused = pool.acquire(17 * KB);
+        check(reused == buf, "Cached buffer is not reused");
+        equal(0, reused.position(), "Position of reused buffer");
+        equal(1, pool.getHitCount(), "Hit count");
+        equal(2, pool.getAcquireCount(), "Acquire count");
+        equal(0, pool.getCachedBytes(), "Cached bytes after reuse");
+        pool.release(reused);
+
+        //Buffers above cache limit are dropped
+        ByteBuffer[] bufs = new ByteBuffer[3];
+        for (int i = 0; i < bufs.length; i++) {
+            bufs[i] = pool.acquire(512 * KB);
+        }
+        for (ByteBuffer b : bufs) {
+            pool.release(b);
+        }
+
+        check(pool.getCachedBytes() <= KB * KB, "Cached bytes above limit");
+        equal(pool.getCachedBytes(), pool.getAllocatedBytes(),
+              "Allocated bytes after drop");
+    }
+
+    private static void checkSock() throws IOException
+    {
+        final BufferPool pool = BufferPool.SOCKET;
+        final long used = pool.getUsedBytes();
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+
+        SocketChannel channel = SocketChannel.open(server.getLocalAddress());
+        SocketChannel peer    = server.accept();
+
+        Selector selector = Selector.open();
+        Sock sock = new TcpSock(null, channel);
+        sock.register(selector, SelectionKey.OP_READ);
+
+        equal(BufferPool.MIN_SIZE, sock.getSendBuf().capacity(), "Initial send buffer");
+        equal(BufferPool.MIN_SIZE, sock.getRecvBuf().capacity(), "Initial recv buffer");
+        equal(used + 2 * BufferPool.MIN_SIZE, pool.getUsedBytes(), "Used bytes of sock");
+
+        Thread reader = new Thread(() -> drain(peer));
+        reader.setDaemon(true);
+        reader.start();
+
+        //Send buffer doubles each time a message does not fit
+        ByteBuffer data = ByteBuffer.allocate(256 * KB);
+        while (data.hasRemaining()) {
+            sock.copy(data);
+            while (!sock.sendAll()) {
+                //Busy wait until the reader drains the socket
+            }
+        }
+
+        check(sock.getSendBuf().capacity() > BufferPool.MIN_SIZE,
+              "Send buffer did not grow");
+
+        ByteBuffer small = ByteBuffer.allocate(10);
+        for (int i = 0; i < 1000; i++) {
+            small.clear();
+            sock.copy(small);
+            while (!sock.sendAll()) {
+                //Busy wait until the reader drains the socket
+            }
+        }
+
+        equal(BufferPool.MIN_SIZE, sock.getSendBuf().capacity(), "Idle send buffer");
+
+        //Receive buffer doubles each time a read fills it
+        Thread writer = new Thread(() -> fill(peer, 4 * KB * KB));
+        writer.setDaemon(true);
+        writer.start();
+
+        long received = 0;
+        int max = 0;
+        while (received < 4 * KB * KB) {
+            int n = sock.recv();
+            check(n != -1, "Connection closed");
+            received += n;
+            max = Math.max(max, sock.getRecvBuf().capacity());
+        }
+
+        check(max > BufferPool.MIN_SIZE, "Receive buffer did not grow");
+
+        for (int i = 0; i < 1000; i++) {
+            sock.recv();
+        }
+
+        equal(BufferPool.MIN_SIZE, sock.getRecvBuf().capacity(), "Idle recv buffer");
+
+        sock.close();
+        equal(used, pool.getUsedBytes(), "Used bytes after close");
+
+        peer.close();
+        server.close();
+        selector.close();
+    }
+
+    private static void drain(SocketChannel peer)
+    {
+        ByteBuffer buf = ByteBuffer.allocate(64 * KB);
+
+        try {
+            while (peer.read(buf) != -1) {
+                buf.clear();
+            }
+        }
+        catch (IOException e) {
+            //Closed at the end of the check
+        }
+    }
+
+    private static void fill(SocketChannel peer, int len)
+    {
+        ByteBuffer buf = ByteBuffer.allocate(len);
+
+        try {
+            while (buf.hasRemaining()) {
+                peer.write(buf);
+            }
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package test.app;
+
+/**
+ * Assertions of the checks under test.app, they do not depend on -ea.
+ * Failed check throws, so the check exits with non zero status.
+ */
+public class Check
+{
+    private Check()
+    {
+
+    }
+
+    /**
+     * Fail if condition is false
+     *
+     * @param condition condition
+     * @param message   failure message
+     */
+    public static void check(boolean condition, String message)
+    {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Fail if values differ
+     *
+     * @param expected expected value
+     * @param actual   actual value
+     * @param message  failure message
+     */
+    public static void equal(long expected, long actual, String message)
+    {
+        if (expected != actual) {
+            throw new AssertionError(message + ", expected : " + expected +
+                                     ", actual : " + actual);
+        }
+    }
+}
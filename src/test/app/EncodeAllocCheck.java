@@ -0,0 +1,195 @@
+package test.app;
+
+import tz.base.common.Buffer;
+import tz.base.transport.sock.Sock;
+import tz.base.transport.sock.TcpSock;
+import tz.core.msg.AppendResp;
+import tz.core.msg.ClientResp;
+import tz.core.msg.ClientRespBatch;
+import tz.core.msg.Msg;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Allocation check of the send path
+ *
+ * Messages are written to a loopback socket, a reader thread decodes them
+ * back. Bytes allocated by the sending thread are reported per message for
+ * copying pre encoded messages and for encoding in place. Check fails if
+ * reused messages allocate after warm up :
+ *
+ *     java test.app.EncodeAllocCheck [message count]
+ */
+public class EncodeAllocCheck
+{
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int BATCH = 64;
+
+    //Bytes allocated while writing to the socket, reported separately
+    private static long flushBytes;
+
+    public static void main(String[] args) throws Exception
+    {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+
+        SocketChannel channel = SocketChannel.open(server.getLocalAddress());
+        SocketChannel peer    = server.accept();
+
+        Selector selector = Selector.open();
+        Sock sock = new TcpSock(null, channel);
+        sock.register(selector, SelectionKey.OP_READ);
+
+        AtomicLong received = new AtomicLong();
+        Thread reader = new Thread(() -> read(peer, received));
+        reader.setDaemon(true);
+        reader.start();
+
+        final AppendResp resp = new AppendResp(1000000, 10, true, 1000);
+        final ClientResp single = new ClientResp(1, true, ByteBuffer.allocate(64));
+        final ClientRespBatch batch = new ClientRespBatch();
+        for (int i = 0; i < 16; i++) {
+            batch.add(new ClientResp(i, true, ByteBuffer.allocate(64)));
+        }
+
+        long expected = 0;
+        boolean failed = false;
+        for (int i = 0; i < 2; i++) {
+            //First round is warm up
+            run("AppendResp, new, copy      ", sock, count, false,
+                () -> new AppendResp(1000000, 10, true, 1000));
+            run("AppendResp, new, in place  ", sock, count, true,
+                () -> new AppendResp(1000000, 10, true, 1000));
+
+            double reused = run("AppendResp, reused in place", sock, count,
+                                true, () -> resp);
+            double resp1 = run("ClientResp, reused in place", sock, count,
+                               true, () -> single);
+            double batched = run("ClientRespBatch, in place  ", sock,
+                                 count / 16, true, () -> batch);
+
+            //Result of the last round counts
+            failed = reused > 0 || resp1 > 0 || batched > 0;
+            expected += 4L * count + count / 16;
+        }
+
+        while (received.get() != expected) {
+            Thread.sleep(10);
+        }
+
+        System.out.println("Decoded messages : " + received.get());
+
+        if (failed) {
+            System.out.println("FAILED : encoding in place allocates");
+            System.exit(1);
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Write messages to the sock
+     * @return bytes allocated per message, excluding the socket writes
+     */
+    private static double run(String name, Sock sock, int count,
+                            boolean inPlace, Supplier<Msg> supplier)
+    {
+        final long thread = Thread.currentThread().getId();
+        final long begin  = THREADS.getThreadAllocatedBytes(thread);
+        final long start  = System.nanoTime();
+
+        flushBytes = 0;
+
+        for (int i = 0; i < count; i++) {
+            Msg msg = supplier.get();
+
+            boolean written = false;
+            if (inPlace) {
+                //Reused messages must not fall back to encode(), it would
+                //keep the encoded copy
+                written = msg.encodeTo(sock);
+                if (!written) {
+                    flush(sock);
+                    written = msg.encodeTo(sock);
+                }
+            }
+
+            while (!written) {
+                msg.encode();
+                msg.writeTo(sock);
+                written = msg.written();
+                if (!written) {
+                    flush(sock);
+                }
+            }
+
+            if (i % BATCH == BATCH - 1 || !sock.hasRemaining()) {
+                flush(sock);
+            }
+        }
+
+        flush(sock);
+
+        final long total   = THREADS.getThreadAllocatedBytes(thread) - begin;
+        final long elapsed = System.nanoTime() - start;
+        final long bytes   = total - flushBytes;
+
+        System.out.println(name                                               +
+                           " : messages "        + count                       +
+                           ", bytes/msg "        + ((double) bytes / count)    +
+                           ", send bytes/msg "   + ((double) flushBytes / count) +
+                           ", ns/msg "           + (elapsed / count));
+
+        return (double) bytes / count;
+    }
+
+    private static void flush(Sock sock)
+    {
+        final long thread = Thread.currentThread().getId();
+        final long begin  = THREADS.getThreadAllocatedBytes(thread);
+
+        while (!sock.sendAll()) {
+            //Busy wait until the reader drains the socket
+        }
+
+        flushBytes += THREADS.getThreadAllocatedBytes(thread) - begin;
+    }
+
+    private static void read(SocketChannel peer, AtomicLong received)
+    {
+        ByteBuffer buf = ByteBuffer.allocate(1024 * 1024);
+
+        try {
+            while (peer.read(buf) != -1) {
+                buf.flip();
+
+                int len;
+                while ((len = Msg.frameLength(buf)) != -1 &&
+                                                    len <= buf.remaining()) {
+                    ByteBuffer frame = buf.slice();
+                    frame.limit(len);
+                    Msg.create(new Buffer(frame));
+                    buf.position(buf.position() + len);
+                    received.incrementAndGet();
+                }
+
+                buf.compact();
+            }
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package test.app;
+
+import tz.base.log.Log;
+import tz.base.poll.Event;
+import tz.core.worker.Worker;
+
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cross thread handoff benchmark
+ *
+ * Producers add timestamped events to a worker, worker measures the time
+ * from add to handle. Run for both loop types, optionally with busy spinning
+ * loops. Producers may wait between events, so the worker goes idle and
+ * latency shows the cost of waking it up :
+ *
+ *     java test.app.EventQueueBench [producers] [events per producer]
+ *                                   [spin time us] [gap between events us]
+ */
+public class EventQueueBench
+{
+    private static class BenchEvent implements Event
+    {
+        private final long created;
+
+        private BenchEvent(long created)
+        {
+            this.created = created;
+        }
+
+        @Override
+        public void onEvent()
+        {
+
+        }
+    }
+
+    private static class BenchWorker extends Worker
+    {
+        private final CountDownLatch done;
+        private long total;
+        private long latency;
+        private long maxLatency;
+
+        private BenchWorker(Log log, boolean ioWorker, long total)
+        {
+            super(log, ioWorker ? "Selector bench" : "Poll bench", ioWorker);
+
+            this.total = total;
+            this.done  = new CountDownLatch(1);
+        }
+
+        @Override
+        public void handleEvents(Deque<Event> events)
+        {
+            final long now = System.nanoTime();
+
+            Event event;
+            while ((event = events.poll()) != null) {
+                long elapsed = now - ((BenchEvent) event).created;
+                latency += elapsed;
+                maxLatency = Math.max(maxLatency, elapsed);
+
+                if (--total == 0) {
+                    done.countDown();
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        final int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int count     = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        final long spinTime = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        final long gap      = args.length > 3 ? Long.parseLong(args[3]) * 1000 : 0;
+
+        Log log = new Log((level, timestamp, threadName, line, t) -> {
+            System.out.println(threadName + " : " + line);
+            if (t != null) {
+                t.printStackTrace();
+            }
+        }, "ERROR");
+
+        for (boolean ioWorker : new boolean[]{false, true}) {
+            //Warm up once, then measure
+            run(log, ioWorker, producers, count / 10, spinTime, gap);
+            run(log, ioWorker, producers, count, spinTime, gap);
+        }
+
+        System.exit(0);
+    }
+
+    private static void run(Log log, boolean ioWorker,
+                            int producers, int count,
+                            long spinTime, long gap) throws Exception
+    {
+        final long total = (long) producers * count;
+        final BenchWorker worker = new BenchWorker(log, ioWorker, total);
+        final AtomicLong addTime = new AtomicLong();
+
+        worker.setSpinTime(spinTime);
+        worker.start();
+
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i++) {
+            threads[i] = new Thread(() -> {
+                long begin = System.nanoTime();
+                for (int j = 0; j < count; j++) {
+                    worker.addEvent(new BenchEvent(System.nanoTime()));
+
+                    final long next = System.nanoTime() + gap;
+                    while (System.nanoTime() < next) {
+                        //Busy wait
+                    }
+                }
+                addTime.addAndGet(System.nanoTime() - begin);
+            });
+        }
+
+        final long begin = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        worker.done.await();
+        final long elapsed = System.nanoTime() - begin;
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.println(worker.getName()                                      +
+                           " : events "        + total                            +
+                           ", ops/sec "        + (total * 1000000000L / elapsed)  +
+                           ", add ns "         + (addTime.get() / total)          +
+                           ", avg latency ns " + (worker.latency / total)         +
+                           ", max latency us " + (worker.maxLatency / 1000));
+    }
+}
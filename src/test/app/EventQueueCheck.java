@@ -0,0 +1,94 @@
+package test.app;
+
+import tz.base.poll.Event;
+import tz.base.poll.EventQueue;
+
+import java.util.ArrayDeque;
+
+import static test.app.Check.check;
+import static test.app.Check.equal;
+
+/**
+ * Check of EventQueue with several producers, consumer drains while
+ * producers add. Events of a producer must come in order, none lost :
+ *
+ *     java test.app.EventQueueCheck [producer count] [events per producer]
+ */
+public class EventQueueCheck
+{
+    private static class CheckEvent implements Event
+    {
+        private final int producer;
+        private final int seq;
+
+        private CheckEvent(int producer, int seq)
+        {
+            this.producer = producer;
+            this.seq      = seq;
+        }
+
+        @Override
+        public void onEvent()
+        {
+
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        final int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int count     = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+        final EventQueue queue = new EventQueue();
+        check(queue.isEmpty(), "New queue is not empty");
+
+        queue.add(new CheckEvent(0, -1));
+        check(!queue.isEmpty(), "Queue is empty after add");
+
+        ArrayDeque<Event> events = new ArrayDeque<>();
+        equal(1, queue.drainTo(events), "Drained count");
+        check(queue.isEmpty(), "Queue is not empty after drain");
+        events.clear();
+
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i++) {
+            final int producer = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < count; j++) {
+                    queue.add(new CheckEvent(producer, j));
+                }
+            });
+            threads[i].start();
+        }
+
+        final int[] next = new int[producers];
+        final long total = (long) producers * count;
+        long received = 0;
+
+        //Lost events would keep the consumer waiting
+        final long deadline = System.nanoTime() + 60_000_000_000L;
+
+        while (received != total) {
+            check(System.nanoTime() < deadline,
+                  "Events lost, received : " + received + " of " + total);
+            queue.drainTo(events);
+
+            CheckEvent event;
+            while ((event = (CheckEvent) events.poll()) != null) {
+                equal(next[event.producer], event.seq,
+                      "Order of producer " + event.producer);
+                next[event.producer]++;
+                received++;
+            }
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        equal(0, queue.drainTo(events), "Events after all are received");
+        check(queue.isEmpty(), "Queue is not empty after all are received");
+
+        System.out.println("EventQueueCheck passed, events : " + received);
+    }
+}
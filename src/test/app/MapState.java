@@ -71,4 +71,18 @@ public class MapState extends State
 
         return buffer.backend();
     }
+
+    @Override
+    public ByteBuffer onQuery(ByteBuffer buf)
+    {
+        Buffer buffer = new Buffer(buf);
+        buffer.getBoolean();
+        String ret = map.get(buffer.getString());
+
+        buffer = new Buffer(Encoder.stringLen(ret));
+        buffer.putString(ret);
+        buffer.flip();
+
+        return buffer.backend();
+    }
 }
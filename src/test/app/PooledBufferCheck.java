@@ -0,0 +1,189 @@
+package test.app;
+
+import tz.base.common.BufferPool;
+import tz.base.common.PooledBuffer;
+import tz.base.transport.sock.Sock;
+import tz.base.transport.sock.TcpSock;
+import tz.core.msg.AppendResp;
+import tz.core.msg.ClientResp;
+import tz.core.msg.Msg;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static test.app.Check.check;
+import static test.app.Check.equal;
+
+/**
+ * Check of reference counting of messages decoded in place. Receive buffer
+ * goes back to the pool only after its owner and all messages on it are
+ * released, sock replaces it instead of reusing it while it is shared :
+ *
+ *     java test.app.PooledBufferCheck
+ */
+public class PooledBufferCheck
+{
+    public static void main(String[] args) throws Exception
+    {
+        checkRefs();
+        checkSock();
+
+        System.out.println("PooledBufferCheck passed");
+    }
+
+    private static void checkRefs()
+    {
+        final BufferPool pool = new BufferPool(BufferPool.MIN_SIZE,
+                                               BufferPool.MAX_SIZE,
+                                               64 * 1024 * 1024);
+
+        PooledBuffer chunk = new PooledBuffer(pool, BufferPool.MIN_SIZE);
+        check(!chunk.isShared(), "New buffer is shared");
+
+        ByteBuffer buf = chunk.backend();
+        write(buf, new AppendResp(1000, 7, true, 42));
+        write(buf, new AppendResp(1001, 8, true, 43));
+        buf.flip();
+
+        Msg first  = next(buf, chunk);
+        Msg second = next(buf, chunk);
+        check(chunk.isShared(), "Buffer is not shared by messages");
+        equal(1000, ((AppendResp) first).getIndex(), "Index of decoded message");
+        equal(8, ((AppendResp) second).getTerm(), "Term of decoded message");
+
+        //Owner releases first, messages keep the buffer out of the pool
+        chunk.release();
+        first.release();
+        first.release();
+        equal(BufferPool.MIN_SIZE, pool.getUsedBytes(), "Used bytes with a message");
+        equal(0, pool.getCachedBytes(), "Cached bytes with a message");
+
+        second.release();
+        equal(0, pool.getUsedBytes(), "Used bytes after release");
+        equal(BufferPool.MIN_SIZE, pool.getCachedBytes(), "Cached bytes after release");
+
+        check(pool.acquire(BufferPool.MIN_SIZE) == buf, "Released buffer is not reused");
+    }
+
+    private static void checkSock() throws IOException
+    {
+        final BufferPool pool = BufferPool.SOCKET;
+        final long used = pool.getUsedBytes();
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", 0));
+
+        SocketChannel channel = SocketChannel.open(server.getLocalAddress());
+        SocketChannel peer    = server.accept();
+
+        Selector selector = Selector.open();
+        Sock sock = new TcpSock(null, channel);
+        sock.register(selector, SelectionKey.OP_READ);
+
+        Sock out = new TcpSock(null, peer);
+        out.register(selector, SelectionKey.OP_READ);
+
+        send(out, response(1, "first"));
+        ByteBuffer recv = receive(sock);
+        PooledBuffer chunk = sock.getRecvChunk();
+
+        ClientResp msg = (ClientResp) next(recv, chunk);
+        check(chunk.isShared(), "Receive buffer is not shared by message");
+
+        //Next read must not overwrite the message
+        send(out, response(2, "second"));
+        recv = receive(sock);
+        check(sock.getRecvChunk() != chunk, "Shared receive buffer is reused");
+        equal(1, msg.getSequence(), "Sequence after next read");
+        check(text(msg.getData()).equals("first"), "Data after next read");
+
+        ClientResp other = (ClientResp) next(recv, sock.getRecvChunk());
+        check(text(other.getData()).equals("second"), "Data of second message");
+
+        //Two socks with two buffers each and the old receive buffer
+        equal(used + 5 * BufferPool.MIN_SIZE, pool.getUsedBytes(),
+              "Used bytes with a message on the old buffer");
+
+        msg.release();
+        equal(used + 4 * BufferPool.MIN_SIZE, pool.getUsedBytes(),
+              "Used bytes after message release");
+
+        other.release();
+        sock.close();
+        out.close();
+        equal(used, pool.getUsedBytes(), "Used bytes after close");
+
+        server.close();
+        selector.close();
+    }
+
+    private static ClientResp response(long sequence, String data)
+    {
+        return new ClientResp(sequence, true, ByteBuffer.wrap(data.getBytes()));
+    }
+
+    private static String text(ByteBuffer buf)
+    {
+        byte[] bytes = new byte[buf.remaining()];
+        buf.duplicate().get(bytes);
+
+        return new String(bytes);
+    }
+
+    private static void write(ByteBuffer buf, Msg msg)
+    {
+        msg.encode();
+        msg.writeTo(buf);
+    }
+
+    private static void send(Sock sock, Msg msg)
+    {
+        msg.encode();
+        msg.writeTo(sock);
+
+        while (!sock.sendAll()) {
+            //Busy wait until the socket is drained
+        }
+    }
+
+    /**
+     * Read until a complete message is in the receive buffer
+     * @return receive buffer, flipped
+     */
+    private static ByteBuffer receive(Sock sock)
+    {
+        while (true) {
+            int n = sock.recv();
+            check(n != -1, "Connection closed");
+
+            if (n > 0) {
+                ByteBuffer buf = sock.getRecvBuf();
+                buf.flip();
+
+                final int len = Msg.frameLength(buf);
+                check(len != -1 && len <= buf.remaining(), "Partial message");
+
+                return buf;
+            }
+        }
+    }
+
+    /**
+     * Decode next message in place, as connections do
+     */
+    private static Msg next(ByteBuffer buf, PooledBuffer chunk)
+    {
+        final int len = Msg.frameLength(buf);
+
+        ByteBuffer slice = buf.slice();
+        slice.limit(len);
+        buf.position(buf.position() + len);
+
+        return Msg.create(slice, chunk);
+    }
+}
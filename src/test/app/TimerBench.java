@@ -0,0 +1,86 @@
+package test.app;
+
+import tz.base.poll.Timer;
+import tz.base.poll.TimerEvent;
+import tz.base.poll.TimerWheel;
+
+import java.util.Random;
+
+/**
+ * Timer benchmark
+ *
+ * Timers are re-armed constantly like reconnect and election timers, time
+ * advances a millisecond per step and due timers are executed :
+ *
+ *     java test.app.TimerBench [timer count] [steps]
+ */
+public class TimerBench
+{
+    private static class BenchTimer extends TimerEvent
+    {
+        private long fired;
+
+        private BenchTimer(long timeout)
+        {
+            super(false, 0, timeout);
+        }
+
+        @Override
+        public void onTimeout()
+        {
+            fired++;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        final int steps = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+        for (int i = 0; i < 3; i++) {
+            run("Priority queue", new Timer(), count, steps);
+            run("Timing wheel  ", new TimerWheel(1, 256), count, steps);
+        }
+    }
+
+    private static void run(String name, Timer timer, int count, int steps)
+    {
+        final Random random = new Random(7);
+        final BenchTimer[] timers = new BenchTimer[count];
+
+        //Wheel starts from current time, timestamps are relative to it
+        long now = System.nanoTime() / 1000000;
+
+        for (int i = 0; i < count; i++) {
+            timers[i] = new BenchTimer(now + 100 + random.nextInt(5000));
+            timer.add(timers[i]);
+        }
+
+        long fired = 0;
+        final long begin = System.nanoTime();
+
+        for (int step = 0; step < steps; step++) {
+            now++;
+
+            //Re-arm one percent of the timers on each step
+            for (int i = 0; i < count / 100; i++) {
+                BenchTimer t = timers[random.nextInt(count)];
+                timer.remove(t);
+                t.timeout = now + 100 + random.nextInt(5000);
+                timer.add(t);
+            }
+
+            timer.execute(now);
+        }
+
+        final long elapsed = System.nanoTime() - begin;
+
+        for (BenchTimer t : timers) {
+            fired += t.fired;
+        }
+
+        System.out.println(name + " : timers " + count + ", steps " + steps +
+                           ", fired " + fired                                  +
+                           ", ns per re-arm " + elapsed / ((long) steps * Math.max(1, count / 100)));
+    }
+}
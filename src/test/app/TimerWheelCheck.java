@@ -0,0 +1,103 @@
+package test.app;
+
+import tz.base.common.Util;
+import tz.base.poll.TimerEvent;
+import tz.base.poll.TimerWheel;
+
+import java.util.Random;
+
+import static test.app.Check.check;
+import static test.app.Check.equal;
+
+/**
+ * Check of TimerWheel, time advances a millisecond per step. Timers must fire
+ * once at their timeout, after cascading down the levels or after being
+ * parked on the last slot. Next timeout must not pass the first timer :
+ *
+ *     java test.app.TimerWheelCheck
+ */
+public class TimerWheelCheck
+{
+    private static long now;
+
+    private static class CheckTimer extends TimerEvent
+    {
+        private long fired = -1;
+        private int count;
+
+        private CheckTimer(long timeout)
+        {
+            super(false, 0, timeout);
+        }
+
+        @Override
+        public void onTimeout()
+        {
+            fired = now;
+            count++;
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        final Random random = new Random(7);
+
+        //16 slots, 4 levels span 65536 ticks
+        run(new TimerWheel(1, 16), random, 500, 60000);
+
+        //4 slots, 4 levels span 256 ticks, most timers are parked
+        run(new TimerWheel(1, 4), random, 500, 5000);
+
+        System.out.println("TimerWheelCheck passed");
+    }
+
+    private static void run(TimerWheel wheel, Random random, int count, int span)
+    {
+        //Wheel starts from current time, timestamps are relative to it
+        now = Util.time();
+        final long start = now;
+
+        final CheckTimer[] timers = new CheckTimer[count];
+        for (int i = 0; i < count; i++) {
+            timers[i] = new CheckTimer(start + 1 + random.nextInt(span));
+            wheel.add(timers[i]);
+        }
+
+        //Removed timers must not fire, moved ones fire at the new timeout
+        final CheckTimer removed = timers[0];
+        wheel.remove(removed);
+
+        final CheckTimer moved = timers[1];
+        moved.timeout = start + span / 2;
+        wheel.add(moved);
+
+        while (now < start + span + 1) {
+            now++;
+
+            final long next = wheel.execute(now);
+
+            long first = Long.MAX_VALUE;
+            for (CheckTimer timer : timers) {
+                if (timer != removed && timer.count == 0) {
+                    first = Math.min(first, timer.timeout);
+                }
+            }
+
+            if (first != Long.MAX_VALUE) {
+                check(next > 0 && now + next <= first,
+                      "Next timeout " + (now + next) + " passes timer at " + first);
+            }
+        }
+
+        equal(0, removed.count, "Removed timer fired");
+
+        for (CheckTimer timer : timers) {
+            if (timer != removed) {
+                equal(1, timer.count, "Fire count of timer at " + timer.timeout);
+                equal(timer.timeout, timer.fired, "Fire time");
+            }
+        }
+
+        equal(0, wheel.execute(now + 1), "Next timeout of empty wheel");
+    }
+}
@@ -0,0 +1,70 @@
+package test.app;
+
+import tz.base.common.Util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static test.app.Check.check;
+import static test.app.Check.equal;
+
+/**
+ * Check of quickselect in Util.kthLargest, results are compared to a sorted
+ * copy for every rank, with duplicates and partially used arrays :
+ *
+ *     java test.app.UtilCheck
+ */
+public class UtilCheck
+{
+    public static void main(String[] args)
+    {
+        final Random random = new Random(7);
+
+        //Single value, all equal and two distinct values
+        verify(new long[]{5}, 1);
+        verify(new long[]{3, 3, 3, 3, 3}, 5);
+        verify(new long[]{1, 2, 1, 2, 1, 2}, 6);
+        verify(new long[]{9, 9, 1, 9, 1}, 5);
+
+        for (int i = 0; i < 10000; i++) {
+            final int length = 1 + random.nextInt(16);
+            final int range  = 1 + random.nextInt(8);
+            final long[] values = new long[length];
+
+            for (int j = 0; j < length; j++) {
+                values[j] = random.nextInt(range) - range / 2;
+            }
+
+            verify(values, 1 + random.nextInt(length));
+        }
+
+        System.out.println("UtilCheck passed");
+    }
+
+    /**
+     * Check all ranks of the first count values, values after count must not
+     * be selected or moved
+     */
+    private static void verify(long[] values, int count)
+    {
+        final long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+
+        for (int k = 1; k <= count; k++) {
+            final long[] copy = values.clone();
+            final long result = Util.kthLargest(copy, count, k);
+
+            equal(sorted[count - k], result,
+                  "Rank " + k + " of " + Arrays.toString(values));
+
+            long[] rest = Arrays.copyOfRange(copy, count, copy.length);
+            check(Arrays.equals(rest, Arrays.copyOfRange(values, count, values.length)),
+                  "Values after count are moved : " + Arrays.toString(copy));
+
+            long[] used = Arrays.copyOf(copy, count);
+            Arrays.sort(used);
+            check(Arrays.equals(used, sorted),
+                  "Values are lost : " + Arrays.toString(copy));
+        }
+    }
+}
@@ -85,6 +85,16 @@ public class BufferArray
         return array;
     }
 
+    /**
+     * Get last added buffer
+     *
+     * @return last buffer, null if there is no buffer waiting
+     */
+    public ByteBuffer last()
+    {
+        return (index > offset) ? array[index - 1] : null;
+    }
+
     /**
      * Get remaining space in the array
      *
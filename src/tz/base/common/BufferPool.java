@@ -0,0 +1,186 @@
+package tz.base.common;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct buffers
+ *
+ * Buffers are in power of two size classes between min and max sizes.
+ * Released buffers are kept for reuse up to a byte limit, buffers above the
+ * limit are left to GC. Any thread may acquire and release buffers.
+ */
+public class BufferPool
+{
+    public static final int MIN_SIZE = 16 * 1024;
+    public static final int MAX_SIZE = 4 * 1024 * 1024;
+
+    //Shared pool of socket buffers
+    public static final BufferPool SOCKET = new BufferPool(MIN_SIZE, MAX_SIZE,
+                                                           64 * 1024 * 1024);
+
+    private final int minShift;
+    private final int maxSize;
+    private final long maxCached;
+    private final ConcurrentLinkedQueue<ByteBuffer>[] classes;
+
+    //Metrics
+    private final AtomicLong allocatedBytes;
+    private final AtomicLong usedBytes;
+    private final AtomicLong cachedBytes;
+    private final AtomicLong acquires;
+    private final AtomicLong hits;
+
+    /**
+     * Create new BufferPool
+     *
+     * @param minSize   smallest buffer size, rounded up to a power of two
+     * @param maxSize   largest buffer size, rounded up to a power of two
+     * @param maxCached max total size of the buffers kept for reuse
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(int minSize, int maxSize, long maxCached)
+    {
+        this.minShift  = 32 - Integer.numberOfLeadingZeros(minSize - 1);
+        this.maxSize   = 1 << (32 - Integer.numberOfLeadingZeros(maxSize - 1));
+        this.maxCached = maxCached;
+        this.classes   = new ConcurrentLinkedQueue[
+                             Integer.numberOfTrailingZeros(this.maxSize) - minShift + 1];
+
+        allocatedBytes = new AtomicLong();
+        usedBytes      = new AtomicLong();
+        cachedBytes    = new AtomicLong();
+        acquires       = new AtomicLong();
+        hits           = new AtomicLong();
+
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Get size of the buffer that would be returned for a request
+     *
+     * @param size requested size
+     * @return     size class, between min and max sizes
+     */
+    public int sizeOf(int size)
+    {
+        size = Math.max(size, 1 << minShift);
+        size = Math.min(size, maxSize);
+
+        return 1 << (32 - Integer.numberOfLeadingZeros(size - 1));
+    }
+
+    /**
+     * Get a cleared buffer
+     *
+     * @param size requested size, buffer may be larger
+     * @return     direct buffer
+     */
+    public ByteBuffer acquire(int size)
+    {
+        final int capacity = sizeOf(size);
+        acquires.incrementAndGet();
+        usedBytes.addAndGet(capacity);
+
+        ByteBuffer buf = classes[indexOf(capacity)].poll();
+        if (buf != null) {
+            hits.incrementAndGet();
+            cachedBytes.addAndGet(-capacity);
+            buf.clear();
+
+            return buf;
+        }
+
+        allocatedBytes.addAndGet(capacity);
+
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Give buffer back to the pool, buffer or its slices must not be used
+     * after this call
+     *
+     * @param buf buffer acquired from this pool
+     */
+    public void release(ByteBuffer buf)
+    {
+        final int capacity = buf.capacity();
+        usedBytes.addAndGet(-capacity);
+
+        if (cachedBytes.addAndGet(capacity) > maxCached) {
+            cachedBytes.addAndGet(-capacity);
+            allocatedBytes.addAndGet(-capacity);
+            return;
+        }
+
+        classes[indexOf(capacity)].add(buf);
+    }
+
+    private int indexOf(int capacity)
+    {
+        return Integer.numberOfTrailingZeros(capacity) - minShift;
+    }
+
+    /**
+     * Get total size of the buffers allocated by this pool and not dropped
+     * @return allocated bytes
+     */
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * Get total size of the buffers in use
+     * @return used bytes
+     */
+    public long getUsedBytes()
+    {
+        return usedBytes.get();
+    }
+
+    /**
+     * Get total size of the buffers waiting for reuse
+     * @return cached bytes
+     */
+    public long getCachedBytes()
+    {
+        return cachedBytes.get();
+    }
+
+    public long getAcquireCount()
+    {
+        return acquires.get();
+    }
+
+    /**
+     * Get count of acquires served from cached buffers
+     * @return hit count
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * toString
+     * @return string representation of the pool metrics
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(256);
+
+        builder.append(" [[BufferPool][")
+               .append("Allocated bytes : ").append(allocatedBytes.get()).append(", ")
+               .append("Used bytes : "     ).append(usedBytes.get())     .append(", ")
+               .append("Cached bytes : "   ).append(cachedBytes.get())   .append(", ")
+               .append("Acquires : "       ).append(acquires.get())      .append(", ")
+               .append("Hits : "           ).append(hits.get())          .append("]]");
+
+        return builder.toString();
+    }
+}
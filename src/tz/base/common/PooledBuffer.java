@@ -0,0 +1,64 @@
+package tz.base.common;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference counted buffer of a pool
+ *
+ * Owner holds the first reference, every user of a slice holds another one.
+ * Buffer goes back to the pool when the last reference is released. A
+ * reference never released only keeps the buffer out of the pool, buffer is
+ * left to GC then.
+ */
+public class PooledBuffer
+{
+    private final BufferPool pool;
+    private final ByteBuffer buf;
+    private final AtomicInteger refs;
+
+    /**
+     * Create new PooledBuffer, caller holds the first reference
+     *
+     * @param pool pool to acquire from
+     * @param size requested size
+     */
+    public PooledBuffer(BufferPool pool, int size)
+    {
+        this.pool = pool;
+        this.buf  = pool.acquire(size);
+        this.refs = new AtomicInteger(1);
+    }
+
+    public ByteBuffer backend()
+    {
+        return buf;
+    }
+
+    /**
+     * Add a reference
+     */
+    public void retain()
+    {
+        refs.incrementAndGet();
+    }
+
+    /**
+     * Drop a reference, buffer or its slices must not be used afterwards
+     */
+    public void release()
+    {
+        if (refs.decrementAndGet() == 0) {
+            pool.release(buf);
+        }
+    }
+
+    /**
+     * Check if someone else holds a reference
+     * @return true if buffer is referenced by others than its owner
+     */
+    public boolean isShared()
+    {
+        return refs.get() > 1;
+    }
+}
@@ -38,6 +38,56 @@ public class Util
         return System.lineSeparator();
     }
 
+    /**
+     * Select k-th largest value in O(n) time without allocation, values
+     * array is reordered in place
+     *
+     * @param values values
+     * @param count  value count in the array
+     * @param k      rank of the value, 1 for the largest
+     * @return       k-th largest value
+     */
+    public static long kthLargest(long[] values, int count, int k)
+    {
+        final int target = k - 1;
+        int left         = 0;
+        int right        = count - 1;
+
+        while (left < right) {
+            final long pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (values[i] > pivot) {
+                    i++;
+                }
+                while (values[j] < pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long tmp  = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (target <= j) {
+                right = j;
+            }
+            else if (target >= i) {
+                left = i;
+            }
+            else {
+                break;
+            }
+        }
+
+        return values[target];
+    }
+
     public static long readLong(InputStream in) throws IOException
     {
         long ch1 = in.read();
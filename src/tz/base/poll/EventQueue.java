@@ -0,0 +1,83 @@
+package tz.base.poll;
+
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded lock-free event queue, many producers and a single consumer
+ *
+ * Producers swap the tail and link the previous node, they never block or
+ * wait for each other. Consumer follows the links from a stub head, a node
+ * whose link is not written yet ends the current drain, it is seen on the
+ * next one.
+ */
+public class EventQueue
+{
+    private static final class Node
+    {
+        private Event event;
+        private volatile Node next;
+
+        private Node(Event event)
+        {
+            this.event = event;
+        }
+    }
+
+    private final AtomicReference<Node> tail;
+
+    //Consumer thread only
+    private Node head;
+
+    /**
+     * Create new EventQueue
+     */
+    public EventQueue()
+    {
+        head = new Node(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Add event, may be called by any thread
+     *
+     * @param event event
+     */
+    public void add(Event event)
+    {
+        Node node = new Node(event);
+        Node prev = tail.getAndSet(node);
+        prev.next = node;
+    }
+
+    /**
+     * Move queued events to consumer's local queue
+     *
+     * @param events destination
+     * @return       moved event count
+     */
+    public int drainTo(Deque<Event> events)
+    {
+        int count = 0;
+        Node next;
+
+        while ((next = head.next) != null) {
+            events.add(next.event);
+            next.event = null;
+            head = next;
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Check if queue is empty, consumer thread only
+     *
+     * @return true if there is no event, an event being added counts
+     */
+    public boolean isEmpty()
+    {
+        return head.next == null && tail.get() == head;
+    }
+}
@@ -8,8 +8,9 @@ import java.io.IOException;
 import java.nio.channels.Selector;
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 public class Poll
 {
@@ -20,7 +21,13 @@ public class Poll
     long timestamp;
 
     //Event holder, mostly events from other threads
-    final ArrayBlockingQueue<Event> queue;
+    final EventQueue queue;
+
+    //Set while the loop is about to sleep, first event after it wakes it up
+    final AtomicBoolean sleeping;
+
+    //Thread running the loop
+    private Thread thread;
 
     //Consumer thread local event queue
     private Deque<Event> events;
@@ -28,6 +35,9 @@ public class Poll
     //Timer handler
     Timer timer;
 
+    //Busy poll time in nanoseconds before blocking, 0 blocks immediately
+    long spinNanos;
+
     //Thread will stop if set true
     boolean stop;
 
@@ -39,9 +49,10 @@ public class Poll
     {
         this.worker = worker;
         this.events = new ArrayDeque<>();
-        this.queue  = new ArrayBlockingQueue<>(100000);
-        this.timer  = new Timer();
-        this.stop   = false;
+        this.queue    = new EventQueue();
+        this.sleeping = new AtomicBoolean(false);
+        this.timer    = new Timer();
+        this.stop     = false;
 
         timestamp   = Util.time();
     }
@@ -66,21 +77,27 @@ public class Poll
 
     /**
      * Pass an event to this poll, mostly called by other threads than this
-     * one's owner
+     * one's owner. Never blocks, only the first event after the loop goes to
+     * sleep wakes it up, so a batch of events costs a single wakeup.
      *
      * @param event Event object to be processed
      */
     public void addEvent(Event event)
     {
-        try {
-            queue.put(event);
-        }
-        catch (InterruptedException e) {
-            worker.logError(e);
-            throw new IllegalStateException(e);
+        queue.add(event);
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            wakeup();
         }
     }
 
+    /**
+     * Wake up the loop thread
+     */
+    protected void wakeup()
+    {
+        LockSupport.unpark(thread);
+    }
+
 
     /**
      * Process events
@@ -105,10 +122,16 @@ public class Poll
     {
         long timeout = 0;
 
+        thread = Thread.currentThread();
+
         while (!stop) {
-            Event event = queue.poll(timeout, TimeUnit.MILLISECONDS);
-            if (event != null) {
-                events.add(event);
+            if (timeout > 0 && !spin(timeout)) {
+                //Check queue after flag is set, producers see the flag otherwise
+                sleeping.set(true);
+                if (queue.isEmpty()) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(timeout));
+                }
+                sleeping.set(false);
             }
 
             timestamp = Util.time();
@@ -120,6 +143,49 @@ public class Poll
         }
     }
 
+    /**
+     * Busy poll the event queue, events arriving meanwhile are handled
+     * without a wakeup
+     *
+     * @param timeout next timer in milliseconds, spinning doesn't pass it
+     * @return        true if there are events
+     */
+    private boolean spin(long timeout)
+    {
+        if (spinNanos > 0) {
+            final long deadline = System.nanoTime() + spinTime(timeout);
+            while (queue.isEmpty() && System.nanoTime() - deadline < 0) {
+                //Plain busy loop, Thread.onSpinWait() requires Java 9
+            }
+        }
+
+        return !queue.isEmpty();
+    }
+
+    /**
+     * Get spin time bounded by the next timer
+     *
+     * @param timeout next timer in milliseconds, 0 if there is no timer
+     * @return        spin time in nanoseconds
+     */
+    long spinTime(long timeout)
+    {
+        return timeout > 0 ? Math.min(spinNanos, TimeUnit.MILLISECONDS.toNanos(timeout)) :
+                             spinNanos;
+    }
+
+    /**
+     * Set busy poll time before the loop blocks waiting for events. Spinning
+     * lowers the latency of handoffs from other threads at the cost of a
+     * busy core
+     *
+     * @param spinNanos spin time in nanoseconds, 0 disables spinning
+     */
+    public void setSpinTime(long spinNanos)
+    {
+        this.spinNanos = spinNanos;
+    }
+
     /**
      * Add Timer
      *
@@ -140,6 +206,16 @@ public class Poll
         timer.remove(event);
     }
 
+    /**
+     * Replace timer implementation, must be called before any timer is added
+     *
+     * @param timer Timer implementation, e.g TimerWheel
+     */
+    public void setTimer(Timer timer)
+    {
+        this.timer = timer;
+    }
+
     /**
      * Get selector
      *
@@ -9,7 +9,6 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.Iterator;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -18,8 +17,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class SelectorPoll extends Poll
 {
     private final Selector selector;
-    private final AtomicBoolean awake;
-    private final AtomicBoolean wakenUp;
 
 
     /**
@@ -38,9 +35,7 @@ public class SelectorPoll extends Poll
             throw new RuntimeException(e);
         }
 
-        this.awake   = new AtomicBoolean(false);
-        this.wakenUp = new AtomicBoolean(false);
-        timestamp    = Util.time();
+        timestamp = Util.time();
     }
 
     /**
@@ -67,23 +62,12 @@ public class SelectorPoll extends Poll
     }
 
     /**
-     * Add event
-     *
-     * @param event Event object to be processed
+     * Wake up the thread blocked on select
      */
     @Override
-    public void addEvent(Event event)
+    protected void wakeup()
     {
-        try {
-            queue.put(event);
-            if (!awake.get() && wakenUp.compareAndSet(false, true)) {
-                selector.wakeup();
-            }
-        }
-        catch (InterruptedException e) {
-            worker.logError(e);
-            throw new IllegalStateException(e);
-        }
+        selector.wakeup();
     }
 
     /**
@@ -132,6 +116,31 @@ public class SelectorPoll extends Poll
     }
 
 
+    /**
+     * Busy poll the selector and the event queue with selectNow, sockets and
+     * events getting ready meanwhile are handled without a wakeup
+     *
+     * @param timeout next timer in milliseconds, spinning doesn't pass it
+     * @return        true if there are selected keys or events
+     *
+     * @throws IOException On any IO exception
+     */
+    private boolean spin(long timeout) throws IOException
+    {
+        if (spinNanos == 0) {
+            return false;
+        }
+
+        final long deadline = System.nanoTime() + spinTime(timeout);
+        do {
+            if (selector.selectNow() > 0 || !queue.isEmpty()) {
+                return true;
+            }
+        } while (System.nanoTime() - deadline < 0);
+
+        return false;
+    }
+
     /**
      * Main loop of the poller
      *
@@ -143,15 +152,17 @@ public class SelectorPoll extends Poll
         long timeout = 1;
 
         while (!stop) {
-            awake.set(false);
-            wakenUp.set(false);
+            if (!spin(timeout)) {
+                sleeping.set(true);
 
-            //favor events over selected keys, also necessary to check here
-            //after awake and wakenUp flags are set to true
-            processEvents();
+                //favor events over selected keys, also necessary to check here
+                //after sleeping flag is set to true
+                processEvents();
+
+                selector.select(timeout);
+                sleeping.set(false);
+            }
 
-            selector.select(timeout);
-            awake.set(true);
             timestamp = Util.time();
             processSelect(selector.selectedKeys());
             processEvents();
@@ -12,6 +12,11 @@ public abstract class TimerEvent
     public long interval;
     public long timeout;
 
+    //Links of the slot this timer is in, only used by TimerWheel
+    TimerWheel.Bucket bucket;
+    TimerEvent prev;
+    TimerEvent next;
+
     /**
      * Create new timer
      *
@@ -0,0 +1,242 @@
+package tz.base.poll;
+
+import tz.base.common.Util;
+
+/**
+ * Hierarchical hashed timing wheel
+ *
+ * Timers are kept in intrusive lists of wheel slots, so add and remove are
+ * O(1) whatever the timer count is. Each wheel level has the same slot count,
+ * a slot of a level spans a full turn of the level below. Timers of the upper
+ * levels are cascaded down when their slot comes up, timers beyond the last
+ * level are parked on its farthest slot and placed again when it comes up.
+ *
+ * Timers fire on tick boundaries, never before their timeout.
+ */
+public class TimerWheel extends Timer
+{
+    private static final int LEVELS = 4;
+
+    /**
+     * List of timers in a slot, timers hold the list they are in
+     */
+    static final class Bucket
+    {
+        private TimerEvent head;
+        private TimerEvent tail;
+
+        private void add(TimerEvent event)
+        {
+            event.bucket = this;
+            event.prev   = tail;
+            event.next   = null;
+
+            if (tail == null) {
+                head = event;
+            }
+            else {
+                tail.next = event;
+            }
+
+            tail = event;
+        }
+
+        private void remove(TimerEvent event)
+        {
+            if (event.prev == null) {
+                head = event.next;
+            }
+            else {
+                event.prev.next = event.next;
+            }
+
+            if (event.next == null) {
+                tail = event.prev;
+            }
+            else {
+                event.next.prev = event.prev;
+            }
+
+            event.bucket = null;
+            event.prev   = null;
+            event.next   = null;
+        }
+
+        private TimerEvent poll()
+        {
+            TimerEvent event = head;
+            if (event != null) {
+                remove(event);
+            }
+
+            return event;
+        }
+
+        private boolean isEmpty()
+        {
+            return head == null;
+        }
+    }
+
+    private final long tick;
+    private final int bits;
+    private final int mask;
+    private final Bucket[][] wheels;
+
+    //Timers already due, they are executed on the next call
+    private final Bucket due;
+
+    //Last tick processed
+    private long current;
+    private int size;
+
+    /**
+     * Create new TimerWheel
+     *
+     * @param tick  tick duration in milliseconds
+     * @param slots slot count of each level, rounded up to a power of two
+     */
+    public TimerWheel(long tick, int slots)
+    {
+        this.tick    = Math.max(1, tick);
+        this.bits    = 32 - Integer.numberOfLeadingZeros(Math.max(2, slots) - 1);
+        this.mask    = (1 << bits) - 1;
+        this.wheels  = new Bucket[LEVELS][1 << bits];
+        this.due     = new Bucket();
+        this.current = Util.time() / this.tick;
+
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Add timer, timer is moved if it is already added
+     *
+     * @param event Timer event
+     */
+    @Override
+    public void add(TimerEvent event)
+    {
+        if (event.bucket != null) {
+            event.bucket.remove(event);
+            size--;
+        }
+
+        place(event);
+        size++;
+    }
+
+    /**
+     * Remove timer, does nothing if it is not added
+     *
+     * @param event Timer event
+     */
+    @Override
+    public void remove(TimerEvent event)
+    {
+        if (event.bucket != null) {
+            event.bucket.remove(event);
+            size--;
+        }
+    }
+
+    private void place(TimerEvent event)
+    {
+        long expiry = (event.timeout + tick - 1) / tick;
+        if (expiry <= current) {
+            due.add(event);
+            return;
+        }
+
+        //Far timers are parked on the last slot they can reach
+        final long delta = expiry - current;
+        if (delta >= 1L << (bits * LEVELS)) {
+            expiry = current + (1L << (bits * LEVELS)) - 1;
+        }
+
+        for (int level = 0; level < LEVELS; level++) {
+            if (expiry - current < 1L << (bits * (level + 1))) {
+                wheels[level][(int) ((expiry >> (bits * level)) & mask)].add(event);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Move timers of a slot to the lower levels
+     *
+     * @param bucket slot
+     */
+    private void cascade(Bucket bucket)
+    {
+        TimerEvent event;
+        while ((event = bucket.poll()) != null) {
+            place(event);
+        }
+    }
+
+    /**
+     * Execute timers for timestamp, return timeout of the first non empty
+     * slot for next iteration
+     *
+     * @param timestamp Current timestamp
+     * @return Next timeout
+     */
+    @Override
+    public long execute(long timestamp)
+    {
+        final long now = timestamp / tick;
+
+        if (size == 0) {
+            current = Math.max(current, now);
+            return 0;
+        }
+
+        while (current < now) {
+            current++;
+
+            for (int level = 1; level < LEVELS; level++) {
+                if ((current & ((1L << (bits * level)) - 1)) != 0) {
+                    break;
+                }
+
+                cascade(wheels[level][(int) ((current >> (bits * level)) & mask)]);
+            }
+
+            Bucket bucket = wheels[0][(int) (current & mask)];
+            TimerEvent event;
+            while ((event = bucket.poll()) != null) {
+                due.add(event);
+            }
+        }
+
+        TimerEvent timer;
+        while ((timer = due.poll()) != null) {
+            size--;
+
+            if (timer.periodic) {
+                timer.updateTimeout(timestamp + timer.interval);
+                place(timer);
+                size++;
+            }
+
+            timer.onTimeout();
+        }
+
+        if (size == 0) {
+            return 0;
+        }
+
+        for (int i = 1; i <= mask; i++) {
+            if (!wheels[0][(int) ((current + i) & mask)].isEmpty()) {
+                return (current + i) * tick - timestamp;
+            }
+        }
+
+        //Wake up on next cascade
+        return (((current >> bits) + 1) << bits) * tick - timestamp;
+    }
+}
@@ -46,6 +46,19 @@ public class ClusterRecord
         return name;
     }
 
+    /**
+     * Get a deep copy of the record
+     * @return copy of the record
+     */
+    public ClusterRecord copy()
+    {
+        Buffer buf = new Buffer(rawLen());
+        encode(buf);
+        buf.flip();
+
+        return new ClusterRecord(buf);
+    }
+
     /**
      * Get record by name
      *
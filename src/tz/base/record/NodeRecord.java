@@ -17,7 +17,8 @@ public class NodeRecord
         PEER,
         PROMOTABLE,
         BACKUP,
-        CLIENT;
+        CLIENT,
+        LEARNER;
 
         static final Role[] values = Role.values();
     }
@@ -67,6 +68,19 @@ public class NodeRecord
         decode(buf);
     }
 
+    /**
+     * Get a deep copy of the record
+     * @return copy of the record
+     */
+    public NodeRecord copy()
+    {
+        Buffer buf = new Buffer(rawLen());
+        encode(buf);
+        buf.flip();
+
+        return new NodeRecord(buf);
+    }
+
     /**
      * Clear records
      */
@@ -147,6 +161,24 @@ public class NodeRecord
         return this.role == Role.CLIENT;
     }
 
+    /**
+     * Set role to LEARNER, learners get the log but they don't vote and don't
+     * count for commit
+     */
+    public void setLearner()
+    {
+        this.role = Role.LEARNER;
+    }
+
+    /**
+     * Is learner
+     * @return True if this node is LEARNER
+     */
+    public boolean isLearner()
+    {
+        return this.role == Role.LEARNER;
+    }
+
     /**
      * Get name of the record
      * @return Name of the record
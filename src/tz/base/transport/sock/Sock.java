@@ -1,6 +1,9 @@
 package tz.base.transport.sock;
 
+import tz.base.common.Buffer;
 import tz.base.common.BufferArray;
+import tz.base.common.BufferPool;
+import tz.base.common.PooledBuffer;
 import tz.base.poll.Fd;
 
 import java.io.IOException;
@@ -16,8 +19,12 @@ import java.nio.channels.*;
  */
 public abstract class Sock implements Fd
 {
-    private static final int IOV_MAX  = 512;
-    private static final int BUF_SIZE = 5 * 1024 * 1024;
+    private static final int IOV_MAX      = 512;
+
+    //Buffers are shrunk after this many rounds using less than a quarter
+    private static final int SHRINK_AFTER = 64;
+
+    private static final BufferPool POOL = BufferPool.SOCKET;
 
     //TCP or TLS
     private final String protocol;
@@ -35,13 +42,33 @@ public abstract class Sock implements Fd
     protected SockOwner owner;
 
     SelectionKey key;
-    final ByteBuffer recvBuf;
-    final ByteBuffer sendBuf;
+
+    //Pooled buffers, they grow while they are filled and shrink when idle.
+    //Received messages may be decoded in place, they hold a reference to
+    //the receive buffer, so it is replaced instead of reused while shared.
+    private PooledBuffer recvChunk;
+    ByteBuffer recvBuf;
+    ByteBuffer sendBuf;
+    private int recvIdle;
+    private int sendIdle;
+    private boolean sendFull;
+    private boolean released;
+
+    //Region of sendBuf at the tail of outBufs, consecutive writes extend it.
+    //First region of a send round reuses sendView, frame wraps sendBuf for
+    //messages encoding in place.
+    private ByteBuffer pending;
+    private ByteBuffer sendView;
+    private boolean viewUsed;
+    private final Buffer frame;
 
     //Buffer list for scatter-gather io
     final BufferArray outBufs;
     boolean connected;
 
+    //File transfer couldn't complete, socket buffer is full
+    boolean blocked;
+
     //Metrics
     private long receivedBytes;
     private long sentBytes;
@@ -62,14 +89,16 @@ public abstract class Sock implements Fd
             this.channel   = ((channel == null) ? SocketChannel.open() : channel);
             this.connected = this.channel.isConnected();
             this.protocol  = protocol;
-            this.recvBuf   = ByteBuffer.allocateDirect(BUF_SIZE);
-            this.sendBuf   = ByteBuffer.allocateDirect(BUF_SIZE);
+            this.recvChunk = new PooledBuffer(POOL, BufferPool.MIN_SIZE);
+            this.recvBuf   = recvChunk.backend();
+            this.sendBuf   = POOL.acquire(BufferPool.MIN_SIZE);
+            this.sendView  = sendBuf.duplicate();
+            this.frame     = new Buffer(sendBuf);
             this.outBufs   = new BufferArray(IOV_MAX);
 
+            //Kernel buffers are left to OS auto tuning
             this.channel.configureBlocking(false);
             this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
-            this.channel.setOption(StandardSocketOptions.SO_RCVBUF, BUF_SIZE);
-            this.channel.setOption(StandardSocketOptions.SO_SNDBUF, BUF_SIZE);
 
             gatherInfo();
         }
@@ -121,25 +150,229 @@ public abstract class Sock implements Fd
      */
     public void copy(ByteBuffer buf)
     {
+        if (buf.remaining() > sendBuf.remaining()) {
+            sendFull = true;
+        }
+
         if (outBufs.remaining() == 0 || sendBuf.remaining() == 0) {
             return;
         }
 
-        int min       = Math.min(buf.remaining(), sendBuf.remaining());
+        int min   = Math.min(buf.remaining(), sendBuf.remaining());
+        int start = sendBuf.position();
+
+        if (buf.hasArray()) {
+            sendBuf.put(buf.array(), buf.arrayOffset() + buf.position(), min);
+            buf.position(buf.position() + min);
+        }
+        else {
+            ByteBuffer src = buf.duplicate();
+            src.limit(src.position() + min);
+            sendBuf.put(src);
+            buf.position(src.position());
+        }
+
+        addPending(start, sendBuf.position());
+    }
+
+    /**
+     * Get send buffer to encode a message in place. Caller puts exactly len
+     * bytes and calls commit()
+     *
+     * @param len encoded message length
+     * @return    send buffer positioned at the free space, null if message
+     *            doesn't fit, caller should copy it instead
+     */
+    public Buffer frame(int len)
+    {
+        if (len > sendBuf.remaining()) {
+            sendFull = true;
+            return null;
+        }
+
+        if (outBufs.remaining() == 0) {
+            return null;
+        }
+
+        frame.setBuf(sendBuf);
+
+        return frame;
+    }
+
+    /**
+     * Add message encoded into the buffer returned by frame() to the
+     * outgoing list
+     *
+     * @param len encoded message length
+     */
+    public void commit(int len)
+    {
+        addPending(sendBuf.position() - len, sendBuf.position());
+    }
+
+    /**
+     * Add a region of sendBuf to the outgoing list, region is merged with the
+     * previous one if they are adjacent, so no buffer is allocated per
+     * message
+     *
+     * @param start start position in sendBuf
+     * @param end   end position in sendBuf
+     */
+    private void addPending(int start, int end)
+    {
+        if (pending != null && outBufs.last() == pending &&
+                                                pending.limit() == start) {
+            pending.limit(end);
+            return;
+        }
+
+        if (!viewUsed) {
+            viewUsed = true;
+            pending  = sendView;
+        }
+        else {
+            pending = sendBuf.duplicate();
+        }
+
+        pending.limit(end);
+        pending.position(start);
+        outBufs.add(pending);
+    }
+
+    /**
+     * Transfer bytes of a file to this socket. Default implementation reads
+     * file into the send buffer, e.g for TLS sockets which must encrypt data
+     *
+     * @param src      source file
+     * @param position file position
+     * @param count    byte count
+     * @return         number of bytes accepted, could be 0
+     *
+     * @throws UncheckedIOException on any IO error
+     */
+    public long transfer(FileChannel src, long position, long count)
+    {
+        if (count > sendBuf.remaining()) {
+            sendFull = true;
+        }
+
+        if (outBufs.remaining() == 0 || sendBuf.remaining() == 0) {
+            return 0;
+        }
+
+        int min       = (int) Math.min(count, sendBuf.remaining());
         int prevPos   = sendBuf.position();
         int prevLimit = sendBuf.limit();
 
-        //Get a slice from sendBuf which is a DirectByteBuffer
         sendBuf.limit(prevPos + min);
         ByteBuffer copy = sendBuf.slice();
         sendBuf.limit(prevLimit);
-        sendBuf.position(prevPos + min);
 
-        copy.put(buf.array(), buf.position(), min);
-        copy.flip();
-        buf.position(buf.position() + min);
+        try {
+            int n = src.read(copy, position);
+            if (n <= 0) {
+                return 0;
+            }
+
+            sendBuf.position(prevPos + n);
+            copy.flip();
+            outBufs.add(copy);
+
+            return n;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Prepare receive buffer for the next read, previous data must be
+     * consumed. Buffer is doubled if last read filled it, halved if reads
+     * stay small for a while.
+     *
+     * @param lastRead byte count of the previous read
+     */
+    void clearRecvBuf(int lastRead)
+    {
+        final int capacity = recvBuf.capacity();
+        int size = capacity;
+
+        if (lastRead == capacity && capacity < BufferPool.MAX_SIZE) {
+            size     = capacity * 2;
+            recvIdle = 0;
+        }
+        else if (lastRead < capacity / 4 && capacity > BufferPool.MIN_SIZE) {
+            if (++recvIdle >= SHRINK_AFTER) {
+                size     = capacity / 2;
+                recvIdle = 0;
+            }
+        }
+        else {
+            recvIdle = 0;
+        }
+
+        if (size != capacity || recvChunk.isShared()) {
+            recvChunk.release();
+            recvChunk = new PooledBuffer(POOL, size);
+            recvBuf   = recvChunk.backend();
+        }
+
+        recvBuf.clear();
+    }
+
+    /**
+     * Prepare send buffer for new messages, must be called when all slices of
+     * it are written. Buffer is doubled if messages didn't fit, halved if it
+     * stays mostly empty for a while.
+     */
+    void clearSendBuf()
+    {
+        final int capacity = sendBuf.capacity();
+
+        if (sendFull && capacity < BufferPool.MAX_SIZE) {
+            POOL.release(sendBuf);
+            sendBuf  = POOL.acquire(capacity * 2);
+            sendView = sendBuf.duplicate();
+            sendIdle = 0;
+        }
+        else if (sendBuf.position() < capacity / 4 && capacity > BufferPool.MIN_SIZE) {
+            if (++sendIdle >= SHRINK_AFTER) {
+                POOL.release(sendBuf);
+                sendBuf  = POOL.acquire(capacity / 2);
+                sendView = sendBuf.duplicate();
+                sendIdle = 0;
+            }
+        }
+        else {
+            sendIdle = 0;
+        }
 
-        outBufs.add(copy);
+        sendFull = false;
+        viewUsed = false;
+        pending  = null;
+        sendBuf.clear();
+    }
+
+    /**
+     * Give buffers back to the pool once, sock is not used after close
+     */
+    void releaseBuffers()
+    {
+        if (!released) {
+            released = true;
+            recvChunk.release();
+            POOL.release(sendBuf);
+        }
+    }
+
+    /**
+     * Get pooled receive buffer, messages decoded in place retain it
+     *
+     * @return reference counted receive buffer
+     */
+    public PooledBuffer getRecvChunk()
+    {
+        return recvChunk;
     }
 
     /**
@@ -169,7 +402,7 @@ public abstract class Sock implements Fd
      */
     public boolean hasRemaining()
     {
-        return sendBuf.hasRemaining() && outBufs.remaining() != 0;
+        return !blocked && sendBuf.hasRemaining() && outBufs.remaining() != 0;
     }
 
     /**
@@ -341,6 +574,7 @@ public abstract class Sock implements Fd
                 key = null;
             }
 
+            releaseBuffers();
             channel.close();
         }
         catch (IOException e) {
@@ -419,6 +653,29 @@ public abstract class Sock implements Fd
         }
     }
 
+    /**
+     * Transfer bytes of a file to socket
+     *
+     * @param src      source file
+     * @param position file position
+     * @param count    byte count
+     * @return         Number of bytes written, could be 0
+     *
+     * @throws UncheckedIOException on any IO error
+     */
+    public long transferTo(FileChannel src, long position, long count)
+    {
+        try {
+            long bytes = src.transferTo(position, count, channel);
+            sentBytes += bytes;
+
+            return bytes;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Write scatter gather operation
      *
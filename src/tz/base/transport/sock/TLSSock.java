@@ -205,6 +205,7 @@ public class TLSSock extends Sock
             //log.warn("Failed to send SSL Close message ", ie);
         }
         finally {
+            releaseBuffers();
             try {
                 try {
                     channel.socket().close();
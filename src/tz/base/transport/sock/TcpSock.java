@@ -1,6 +1,7 @@
 package tz.base.transport.sock;
 
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 
@@ -12,6 +13,9 @@ public class TcpSock extends Sock
 {
     private static final String PROTOCOL = "tcp";
 
+    //Byte count of the previous read, receive buffer is sized by it
+    private int lastRead;
+
     /**
      * Create new TCP sock
      *
@@ -44,13 +48,15 @@ public class TcpSock extends Sock
     @Override
     public int recv()
     {
-        recvBuf.clear();
+        clearRecvBuf(lastRead);
 
         int n = read(recvBuf);
         if (n == -1) {
             connected = false;
         }
 
+        lastRead = n;
+
         return n;
     }
 
@@ -64,16 +70,50 @@ public class TcpSock extends Sock
     public boolean sendAll()
     {
         write(outBufs.getArray(), outBufs.getOffset(), outBufs.getCount());
-        if (!outBufs.popEmpties()) {
+        if (!outBufs.popEmpties() || blocked) {
+            blocked = false;
             setOp(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
             return false;
         }
 
-        sendBuf.clear();
+        clearSendBuf();
 
         return true;
     }
 
+    /**
+     * Transfer bytes of a file directly to the socket with sendfile, file
+     * pages are not copied to user space. Pending buffers are sent first to
+     * keep the order.
+     *
+     * @param src      source file
+     * @param position file position
+     * @param count    byte count
+     * @return         number of bytes transferred, could be 0
+     *
+     * @throws UncheckedIOException on any IO error
+     */
+    @Override
+    public long transfer(FileChannel src, long position, long count)
+    {
+        if (outBufs.getCount() != 0) {
+            write(outBufs.getArray(), outBufs.getOffset(), outBufs.getCount());
+            if (!outBufs.popEmpties()) {
+                blocked = true;
+                return 0;
+            }
+
+            clearSendBuf();
+        }
+
+        long n = transferTo(src, position, count);
+        if (n < count) {
+            blocked = true;
+        }
+
+        return n;
+    }
+
 
 
     /**
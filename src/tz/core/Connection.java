@@ -1,6 +1,7 @@
 package tz.core;
 
 import tz.base.common.Buffer;
+import tz.base.common.PooledBuffer;
 import tz.base.record.TransportRecord;
 import tz.base.transport.sock.Sock;
 import tz.base.transport.sock.SockOwner;
@@ -14,12 +15,19 @@ import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Connection
  *
- * Handles tcp and tls connections
+ * Handles tcp and tls connections. Raft groups of a host share connections,
+ * each group has its own node on the connection and messages are tagged with
+ * their group by GroupSwitch messages.
  */
 public class Connection implements SockOwner, MsgHandler
 {
@@ -31,17 +39,31 @@ public class Connection implements SockOwner, MsgHandler
         DISCONNECTED
     }
 
+    //Lower lanes are selected at least once in this many messages
+    private static final int MAX_SKIPS = 16;
+
     private IOWorker worker;
     private Sock sock;
     private TransportRecord record;
 
     private Deque<Msg> incomings;
-    private Deque<Msg> outgoings;
+    //Outgoing messages per priority lane, see Msg.getLane()
+    private final Deque<Msg>[] lanes;
+    private final int[] skips;
+    private Msg current;
+
+    //Messages queued by other threads and not written to the socket yet
+    private final AtomicInteger queuedMsgs;
 
     private final Buffer header;
     private Buffer raw;
 
-    private Node node;
+    //Node of group 0 is kept apart, it is the only one without multi-raft
+    private volatile Node node;
+    private final Map<Integer, Node> groupNodes;
+    private final GroupSwitch groupSwitch;
+    private int inGroup;
+    private int outGroup;
 
     private long receivedMsgCount;
     private long sentMsgCount;
@@ -59,26 +81,89 @@ public class Connection implements SockOwner, MsgHandler
 
         header        = new Buffer(Msg.MIN_MSG_SIZE);
         incomings     = new ArrayDeque<>();
-        outgoings     = new ArrayDeque<>();
+        lanes         = createLanes();
+        skips         = new int[Msg.LANE_COUNT];
+        groupNodes    = new ConcurrentHashMap<>();
+        groupSwitch   = new GroupSwitch(0);
+        queuedMsgs    = new AtomicInteger();
+
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
 
         if (this.sock != null) {
             this.sock.setOwner(this);
         }
     }
 
-    public Node getNode()
+    /**
+     * Create lane array, generic arrays can't be created directly
+     * @return empty lane array
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Deque<Msg>[] createLanes()
     {
-        return node;
+        return new Deque[Msg.LANE_COUNT];
     }
 
+    /**
+     * Get node of a group on this connection
+     * @param group group id
+     * @return      node or null if group has no node on this connection
+     */
+    public Node getNode(int group)
+    {
+        return group == 0 ? node : groupNodes.get(group);
+    }
+
+    /**
+     * Set node of its group on this connection
+     * @param node node
+     */
     public void setNode(Node node)
     {
-        this.node = node;
+        if (node.getGroup() == 0) {
+            this.node = node;
+        }
+        else {
+            groupNodes.put(node.getGroup(), node);
+        }
+    }
+
+    /**
+     * Remove node from this connection, connection stays open for others
+     * @param node node
+     */
+    public void removeNode(Node node)
+    {
+        if (node.getGroup() == 0) {
+            if (this.node == node) {
+                this.node = null;
+            }
+        }
+        else {
+            groupNodes.remove(node.getGroup(), node);
+        }
+    }
+
+    /**
+     * Get nodes of all groups on this connection
+     * @return nodes
+     */
+    public List<Node> getNodes()
+    {
+        List<Node> nodes = new ArrayList<>(groupNodes.values());
+        Node first = node;
+        if (first != null) {
+            nodes.add(first);
+        }
+
+        return nodes;
     }
 
-    public boolean hasNode()
+    public boolean hasNode(int group)
     {
-        return node != null;
+        return getNode(group) != null;
     }
 
     /**
@@ -158,15 +243,51 @@ public class Connection implements SockOwner, MsgHandler
             sock.close();
             sock = null;
         }
+
+        releaseMsgs();
+    }
+
+    /**
+     * Drop outgoing messages, shared resources of them are released
+     */
+    private void releaseMsgs()
+    {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+
+        for (Deque<Msg> lane : lanes) {
+            for (Msg msg : lane) {
+                msg.release();
+            }
+            lane.clear();
+        }
     }
 
     /**
-     * Decode received messages
-     * @param buf received data from socket
-     * @return    decoded message
+     * Decode received messages, messages completely in the receive buffer
+     * are decoded in place, they must be released once handled
+     *
+     * @param buf   received data from socket
+     * @param chunk pooled buffer behind buf
+     * @return      decoded message
      */
-    public Msg decode(ByteBuffer buf)
+    public Msg decode(ByteBuffer buf, PooledBuffer chunk)
     {
+        if (raw == null && header.position() == 0) {
+            //Message is complete in the receive buffer, decode it in place
+            final int frame = Msg.frameLength(buf);
+            if (frame != -1 && frame <= buf.remaining()) {
+                ByteBuffer slice = buf.slice();
+                slice.limit(frame);
+                buf.position(buf.position() + frame);
+                receivedMsgCount++;
+
+                return Msg.create(slice, chunk);
+            }
+        }
+
         if (raw == null) {
             header.put(buf);
             if (header.remaining() != 0) {
@@ -196,20 +317,52 @@ public class Connection implements SockOwner, MsgHandler
     /**
      * Flush outgoing messages
      * This call provides efficient batching mechanism
+     *
+     * Messages are written by priority, a message is written completely
+     * before switching to another lane, so a control message waits one
+     * message of another lane at most.
      */
     public void flush()
     {
-        Msg msg;
-        while ((msg = outgoings.peek()) != null) {
-            msg.encode();
-            msg.writeTo(sock);
-            if (msg.written()) {
-                worker.logInfo("Msg sent : ", msg, " to ", this);
+        while (true) {
+            if (current == null) {
+                final int lane = nextLane();
+                if (lane == -1) {
+                    return;
+                }
+
+                Msg msg = lanes[lane].peek();
+
+                //Following messages belong to another group, send group header
+                if (msg.getGroup() != outGroup) {
+                    outGroup = msg.getGroup();
+                    groupSwitch.setTarget(outGroup);
+                    current = groupSwitch;
+                }
+                else {
+                    current = lanes[lane].poll();
+                }
+            }
+
+            //Encode in place if possible, otherwise copy the encoded message
+            boolean written = current.encodeTo(sock);
+            if (!written) {
+                current.encode();
+                current.writeTo(sock);
+                written = current.written();
+            }
+
+            if (written) {
+                worker.logInfo("Msg sent : ", current, " to ", this);
                 sentMsgCount++;
-                outgoings.pop();
+                if (current != groupSwitch) {
+                    queuedMsgs.decrementAndGet();
+                }
+                current.release();
+                current = null;
             }
 
-            if (!sock.hasRemaining() || outgoings.isEmpty()) {
+            if (!sock.hasRemaining() || (current == null && nextLane() == -1)) {
                 if (!sock.sendAll()) {
                     return;
                 }
@@ -217,10 +370,76 @@ public class Connection implements SockOwner, MsgHandler
         }
     }
 
+    /**
+     * Select the lane to write next, control lane is always first. Other
+     * lanes are in priority order but a lane skipped MAX_SKIPS times is
+     * selected once, so bulk transfers are not starved.
+     *
+     * @return lane or -1 if there is no outgoing message
+     */
+    private int nextLane()
+    {
+        if (!lanes[Msg.LANE_CONTROL].isEmpty()) {
+            return Msg.LANE_CONTROL;
+        }
+
+        int selected = -1;
+        for (int i = Msg.LANE_REPLICATION; i < Msg.LANE_COUNT; i++) {
+            if (lanes[i].isEmpty()) {
+                continue;
+            }
+
+            if (selected == -1) {
+                selected = i;
+            }
+            else if (++skips[i] >= MAX_SKIPS) {
+                skips[i] = 0;
+                return i;
+            }
+        }
+
+        if (selected != -1) {
+            skips[selected] = 0;
+        }
+
+        return selected;
+    }
+
+
+    /**
+     * Messages are queued for this connection, called by the sender thread
+     * @param count message count
+     */
+    public void addQueued(int count)
+    {
+        queuedMsgs.addAndGet(count);
+    }
+
+    /**
+     * Get count of messages waiting to be written, senders use it to detect
+     * slow receivers
+     * @return queued message count
+     */
+    public int getQueuedMsgs()
+    {
+        return queuedMsgs.get();
+    }
 
     public void addMsgs(Deque<Msg> msgs)
     {
-        outgoings.addAll(msgs);
+        for (Msg msg : msgs) {
+            int lane = msg.getLane();
+
+            //Heartbeats must not overtake queued entries, receiver would
+            //reject them for missing previous entries
+            if (lane == Msg.LANE_CONTROL &&
+                (msg.getType() == AppendReq.TYPE || msg.getType() == HeartbeatBatch.TYPE) &&
+                !lanes[Msg.LANE_REPLICATION].isEmpty()) {
+                lane = Msg.LANE_REPLICATION;
+            }
+
+            lanes[lane].add(msg);
+        }
     }
 
     /**
@@ -298,11 +517,18 @@ public class Connection implements SockOwner, MsgHandler
                 buf.flip();
 
                 while (buf.hasRemaining()) {
-                    Msg msg = decode(buf);
+                    Msg msg = decode(buf, sock.getRecvChunk());
                     if (msg == null) {
                         break;
                     }
 
+                    if (msg.getType() == GroupSwitch.TYPE) {
+                        inGroup = ((GroupSwitch) msg).getTarget();
+                        msg.release();
+                        continue;
+                    }
+
+                    msg.setGroup(inGroup);
                     worker.logInfo("Msg recv : ", msg, " from ", this);
                     worker.handleIncomingMsg(this, msg);
                 }
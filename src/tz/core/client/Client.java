@@ -2,6 +2,7 @@ package tz.core.client;
 
 
 import tz.base.common.Buffer;
+import tz.base.common.PooledBuffer;
 import tz.base.log.Log;
 import tz.base.poll.Event;
 import tz.base.poll.TimerEvent;
@@ -34,6 +35,9 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class Client extends Worker implements SockOwner, MsgHandler
 {
+    //Max command bytes of a ClientReqBatch
+    private static final int MAX_BATCH_SIZE = 64 * 1024;
+
     enum ConnectionState
     {
         WILL_CONNECT,
@@ -46,6 +50,7 @@ public class Client extends Worker implements SockOwner, MsgHandler
     private int clientId;
 
     private AtomicLong sequence;
+    private AtomicLong querySequence;
     private long acknowledge;
     private long outAcknowledge;
     private long outTimestamp;
@@ -57,6 +62,8 @@ public class Client extends Worker implements SockOwner, MsgHandler
     private TimerEvent connectTimeout;
     private AtomicBoolean initialized;
     private boolean connected;
+    private boolean readOnly;
+    private int raftGroup;
 
     private Sock sock;
     private int leaderIndex;
@@ -64,11 +71,18 @@ public class Client extends Worker implements SockOwner, MsgHandler
     private ConnectionState connectionState;
     private final ArrayDeque<Msg> incomings;
     private final ArrayDeque<Msg> outgoings;
+    private ClientReqBatch batch;
+
+    //First request rejected by a busy leader, it and later requests are held
+    //back and sent again in order on retry timeout, -1 if none
+    private long retryFrom;
+    private TimerEvent retryTimer;
     private final Buffer header;
     private Buffer raw;
     private final ClientListener listener;
 
-    private Map<Long, FutureRequest> requests;
+    private NavigableMap<Long, FutureRequest> requests;
+    private Map<Long, FutureQuery> queries;
     private CompletableFuture<Boolean> tillConnect;
     private CompletableFuture<Boolean> tillDisconnect;
     private int onFlightCount;
@@ -92,10 +106,13 @@ public class Client extends Worker implements SockOwner, MsgHandler
         header         = new Buffer(Msg.MIN_MSG_SIZE);
         incomings      = new ArrayDeque<>();
         outgoings      = new ArrayDeque<>();
+        retryFrom      = -1;
         requests       = new TreeMap<>();
+        queries        = new TreeMap<>();
         tryConnect     = new TryConnect(this, true, 2000, timestamp());
         pingTimer      = new Ping(this, true, 2000, timestamp() + 2000);
         sequence       = new AtomicLong(0);
+        querySequence  = new AtomicLong(0);
         initialized    = new AtomicBoolean(false);
         tillConnect    = new CompletableFuture<>();
         tillDisconnect = new CompletableFuture<>();
@@ -187,9 +204,13 @@ public class Client extends Worker implements SockOwner, MsgHandler
         for (FutureRequest request : requests.values()) {
             request.finishExceptionally(new IllegalStateException("Cannot connect to cluster"));
         }
+        for (FutureQuery query : queries.values()) {
+            query.finishExceptionally(new IllegalStateException("Cannot connect to cluster"));
+        }
         removeTimer(connectTimeout);
 
         requests.clear();
+        queries.clear();
         tillConnect.complete(false);
         tillConnect = new CompletableFuture<>();
         tillDisconnect.complete(true);
@@ -213,6 +234,29 @@ public class Client extends Worker implements SockOwner, MsgHandler
         removeTimer(tryConnect);
     }
 
+    /**
+     * Send queries only, read only clients can connect to any peer and
+     * followers serve queries after learning read index from the leader.
+     * Must be set before connect.
+     *
+     * @param readOnly true if client will send queries only
+     */
+    public void setReadOnly(boolean readOnly)
+    {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Set raft group to connect, if cluster runs on a RaftHost with many
+     * groups. Must be set before connect.
+     *
+     * @param raftGroup group id
+     */
+    public void setRaftGroup(int raftGroup)
+    {
+        this.raftGroup = raftGroup;
+    }
+
     /**
      * Add transport clusterRecord
      * @param record new transport clusterRecord
@@ -265,12 +309,19 @@ public class Client extends Worker implements SockOwner, MsgHandler
      */
     private void flush()
     {
+        closeBatch();
+
         while (!outgoings.isEmpty()) {
             Msg msg = outgoings.element();
-            msg.encode();
-            msg.writeTo(sock);
 
-            if (msg.written()) {
+            boolean written = msg.encodeTo(sock);
+            if (!written) {
+                msg.encode();
+                msg.writeTo(sock);
+                written = msg.written();
+            }
+
+            if (written) {
                 logInfo("Message is sent to ", this, " ", msg);
                 outTimestamp = timestamp();
                 outgoings.pop();
@@ -288,7 +339,7 @@ public class Client extends Worker implements SockOwner, MsgHandler
 
     public void sendPing()
     {
-        if (!requests.isEmpty()) {
+        if (readOnly || !requests.isEmpty()) {
             return;
         }
 
@@ -315,6 +366,10 @@ public class Client extends Worker implements SockOwner, MsgHandler
             throw new IllegalStateException("Client is not connected yet");
         }
 
+        if (readOnly) {
+            throw new IllegalStateException("Client is read only");
+        }
+
         waitTillAvailable();
 
         long currentSequence = sequence.getAndIncrement();
@@ -328,6 +383,40 @@ public class Client extends Worker implements SockOwner, MsgHandler
         return req;
     }
 
+    /**
+     * Send a read only query, query is not written to the log
+     * @param data raw application query
+     * @return     Future holding the query result
+     */
+    public FutureQuery sendQuery(ByteBuffer data) throws InterruptedException
+    {
+        if (!initialized.get()) {
+            throw new IllegalStateException("Client is not connected yet");
+        }
+
+        waitTillAvailable();
+
+        QueryReq queryMsg = new QueryReq(querySequence.getAndIncrement(), data);
+        queryMsg.encode();
+
+        FutureQuery query = new FutureQuery(queryMsg);
+        addEvent(new SendQuery(this, query));
+
+        return query;
+    }
+
+    /**
+     * Send query callback
+     * @param query client query
+     */
+    public void handleSendQueryEvent(FutureQuery query)
+    {
+        queries.put(query.getId(), query);
+        if (connected) {
+            outgoings.add(query.getQuery());
+        }
+    }
+
     /**
      * Send request callback
      * @param req client request
@@ -342,18 +431,57 @@ public class Client extends Worker implements SockOwner, MsgHandler
         }
 
         requests.put(req.getSequence(), req);
-        if (connected) {
-            outgoings.add(req.getRequest());
-            outAcknowledge = req.getAcknowledge();
+        if (connected && retryFrom == -1) {
+            addRequest(req.getRequest());
         }
     }
 
+    /**
+     * Add request to the batch, requests queued in the same iteration are
+     * sent in one message if their sequences are consecutive
+     * @param req request
+     */
+    private void addRequest(ClientReq req)
+    {
+        if (batch != null && !batch.accepts(req, MAX_BATCH_SIZE)) {
+            closeBatch();
+        }
+
+        if (batch == null) {
+            batch = new ClientReqBatch(req);
+        }
+        else {
+            batch.add(req);
+        }
+    }
+
+    /**
+     * Add current batch to outgoing messages, single request is sent as is
+     */
+    private void closeBatch()
+    {
+        if (batch == null) {
+            return;
+        }
+
+        List<ClientReq> list = batch.getRequests();
+        outgoings.add(list.size() == 1 ? list.get(0) : batch);
+        outAcknowledge = batch.getAcknowledge();
+        batch = null;
+    }
+
     /**
      * Connection established, send connect request to leader
      */
     private void sendConnectReq()
     {
-        outgoings.add(new ConnectReq(clusterRecord.getName(), name, true));
+        //Connection may be shared by groups on the host, select our group
+        if (raftGroup != 0) {
+            outgoings.add(new GroupSwitch(raftGroup));
+        }
+
+        outgoings.add(new ConnectReq(clusterRecord.getName(), name,
+                                     true, readOnly));
         flush();
     }
 
@@ -412,6 +540,8 @@ public class Client extends Worker implements SockOwner, MsgHandler
             sock = null;
             incomings.clear();
             outgoings.clear();
+            retryFrom = -1;
+            batch = null;
             connected = false;
             connectTimeout = new ConnectTimeout(this, false, connectTimeout.interval,
                                                 timestamp() + connectTimeout.interval);
@@ -420,12 +550,28 @@ public class Client extends Worker implements SockOwner, MsgHandler
     }
 
     /**
-     * Decode message from raw buffer
-     * @param buf buffer holding raw message
-     * @return    decoded message as Msg object
+     * Decode message from raw buffer, messages completely in the receive
+     * buffer are decoded in place, they are released once handled
+     *
+     * @param buf   buffer holding raw message
+     * @param chunk pooled buffer behind buf
+     * @return      decoded message as Msg object
      */
-    public Msg decode(ByteBuffer buf)
+    public Msg decode(ByteBuffer buf, PooledBuffer chunk)
     {
+        if (raw == null && header.position() == 0) {
+            //Message is complete in the receive buffer, decode it in place
+            final int frame = Msg.frameLength(buf);
+            if (frame != -1 && frame <= buf.remaining()) {
+                ByteBuffer slice = buf.slice();
+                slice.limit(frame);
+                buf.position(buf.position() + frame);
+                receivedMsgCount++;
+
+                return Msg.create(slice, chunk);
+            }
+        }
+
         if (raw == null) {
             header.put(buf);
             if (header.remaining() != 0) {
@@ -460,6 +606,7 @@ public class Client extends Worker implements SockOwner, MsgHandler
         for (Msg msg : incomings) {
             logInfo("Received msg for : ", this, " ", msg);
             msg.handle(this);
+            msg.release();
         }
 
         incomings.clear();
@@ -485,7 +632,7 @@ public class Client extends Worker implements SockOwner, MsgHandler
                 buf.flip();
 
                 while (buf.hasRemaining()) {
-                    Msg msg = decode(buf);
+                    Msg msg = decode(buf, sock.getRecvChunk());
                     if (msg == null) {
                         break;
                     }
@@ -527,11 +674,12 @@ public class Client extends Worker implements SockOwner, MsgHandler
 
         remote.clearTransports();
         for (NodeRecord record : clusterRecord.peers) {
+            //Read only clients prefer followers to offload the leader
             if (record.isLeader()) {
-                remote.inheritTransports(true, record);
+                remote.inheritTransports(!readOnly, record);
             }
             else if (record.isPeer()) {
-                remote.inheritTransports(false, record);
+                remote.inheritTransports(readOnly, record);
             }
         }
 
@@ -556,8 +704,15 @@ public class Client extends Worker implements SockOwner, MsgHandler
         for (FutureRequest request : requests.values()) {
             ClientReq req = request.getRequest();
             req.rewind();
-            outgoings.add(request.getRequest());
-            outAcknowledge = req.getAcknowledge();
+            addRequest(req);
+        }
+
+        closeBatch();
+
+        for (FutureQuery query : queries.values()) {
+            QueryReq req = query.getQuery();
+            req.rewind();
+            outgoings.add(req);
         }
     }
 
@@ -571,7 +726,8 @@ public class Client extends Worker implements SockOwner, MsgHandler
         acknowledge = msg.getSequence();
         FutureRequest req = requests.remove(msg.getSequence());
         if (req != null) {
-            req.finish(msg.getData());
+            //Response outlives the message, receive buffer is reused
+            req.finish(copyOf(msg.getData()));
             onFlightCount--;
             if (onFlightCount < 20000) {
                 available.get().countDown();
@@ -579,10 +735,101 @@ public class Client extends Worker implements SockOwner, MsgHandler
         }
     }
 
+    /**
+     * Handle client busy callback, leader is overloaded. Leader rejects later
+     * requests until the rejected one is sent again, so new requests are held
+     * back and all requests from the rejected one are sent again in order
+     * after retry interval
+     * @param msg ClientBusy message
+     */
+    @Override
+    public void handleClientBusy(ClientBusy msg)
+    {
+        if (retryFrom == -1 || msg.getSequence() < retryFrom) {
+            retryFrom = msg.getSequence();
+        }
+
+        //Open batch holds later requests, they are sent again on retry
+        batch = null;
+
+        if (retryTimer == null) {
+            retryTimer = new RetryRequests(this, false, msg.getRetryAfter(),
+                                           timestamp() + msg.getRetryAfter());
+            addTimer(retryTimer);
+        }
+    }
+
+    /**
+     * Retry timeout, send requests from the first rejected one again
+     */
+    public void handleRetryRequests()
+    {
+        retryTimer = null;
+        if (!connected || retryFrom == -1) {
+            retryFrom = -1;
+            return;
+        }
+
+        for (FutureRequest request : requests.tailMap(retryFrom, true).values()) {
+            ClientReq req = request.getRequest();
+            req.rewind();
+            addRequest(req);
+        }
+
+        retryFrom = -1;
+        closeBatch();
+        flush();
+    }
+
+    /**
+     * Handle client resp batch callback
+     * @param msg ClientRespBatch message
+     */
+    @Override
+    public void handleClientRespBatch(ClientRespBatch msg)
+    {
+        for (ClientResp resp : msg.getResponses()) {
+            handleClientResp(resp);
+        }
+    }
+
+    /**
+     * Handle query resp callback
+     * @param msg QueryResp message
+     */
+    @Override
+    public void handleQueryResp(QueryResp msg)
+    {
+        FutureQuery query = queries.remove(msg.getId());
+        if (query != null) {
+            if (msg.isSuccess()) {
+                query.finish(copyOf(msg.getData()));
+            }
+            else {
+                query.finishExceptionally(new IllegalStateException("Query rejected"));
+            }
+        }
+    }
+
+    private static ByteBuffer copyOf(ByteBuffer data)
+    {
+        ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+        copy.put(data.duplicate());
+        copy.flip();
+
+        return copy;
+    }
+
     @Override
     public void handlePublishReq(PublishReq msg)
     {
         clusterRecord = msg.getRecord();
         listener.configChange(clusterRecord);
     }
+
+    @Override
+    public void handleGroupSwitch(GroupSwitch msg)
+    {
+        //Responses are always from the group of this client
+    }
 }
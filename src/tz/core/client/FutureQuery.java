@@ -0,0 +1,60 @@
+package tz.core.client;
+
+import tz.core.msg.QueryReq;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * CompletableFuture for client query
+ */
+public class FutureQuery extends CompletableFuture<ByteBuffer>
+{
+    //Original query
+    private final QueryReq query;
+
+    /**
+     * Create a new FutureQuery
+     * @param query Client query
+     */
+    public FutureQuery(QueryReq query)
+    {
+        this.query = query;
+    }
+
+    /**
+     * Get query id
+     * @return Id of the query
+     */
+    public long getId()
+    {
+        return query.getId();
+    }
+
+    /**
+     * Get query
+     * @return Query
+     */
+    public QueryReq getQuery()
+    {
+        return query;
+    }
+
+    /**
+     * Response received, finish the future
+     * @param response Response
+     */
+    public void finish(ByteBuffer response)
+    {
+        complete(response);
+    }
+
+    /**
+     * Query failed
+     * @param th Any throwable to report to caller of the future
+     */
+    public void finishExceptionally(Throwable th)
+    {
+        completeExceptionally(th);
+    }
+}
@@ -0,0 +1,34 @@
+package tz.core.client;
+
+import tz.base.poll.TimerEvent;
+
+/**
+ * Retry timer, requests rejected by a busy leader are sent again
+ */
+public class RetryRequests extends TimerEvent
+{
+    private final Client client;
+
+    /**
+     * Retry timer
+     * @param client   Client
+     * @param periodic Is periodic
+     * @param interval Timeout interval
+     * @param timeout  First timeout
+     */
+    public RetryRequests(Client client, boolean periodic, long interval, long timeout)
+    {
+        super(periodic, interval, timeout);
+
+        this.client = client;
+    }
+
+    /**
+     * Timeout
+     */
+    @Override
+    public void onTimeout()
+    {
+        client.handleRetryRequests();
+    }
+}
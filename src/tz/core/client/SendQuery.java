@@ -0,0 +1,34 @@
+package tz.core.client;
+
+import tz.base.poll.Event;
+
+/**
+ * Send query event
+ * Application to client worker
+ */
+public class SendQuery implements Event
+{
+    private final Client client;
+    private final FutureQuery query;
+
+    /**
+     * SendQuery
+     *
+     * @param client Client
+     * @param query  Query
+     */
+    public SendQuery(Client client, FutureQuery query)
+    {
+        this.client = client;
+        this.query  = query;
+    }
+
+    /**
+     * On event
+     */
+    @Override
+    public void onEvent()
+    {
+        client.handleSendQueryEvent(query);
+    }
+}
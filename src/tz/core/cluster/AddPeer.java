@@ -0,0 +1,27 @@
+package tz.core.cluster;
+
+import tz.base.poll.Event;
+import tz.base.record.NodeRecord;
+
+import java.util.concurrent.CompletableFuture;
+
+public class AddPeer implements Event
+{
+    private final Cluster cluster;
+    private final NodeRecord record;
+    private final CompletableFuture<Boolean> future;
+
+    public AddPeer(Cluster cluster, NodeRecord record,
+                   CompletableFuture<Boolean> future)
+    {
+        this.cluster = cluster;
+        this.record  = record;
+        this.future  = future;
+    }
+
+    @Override
+    public void onEvent()
+    {
+        cluster.handleAddPeer(record, future);
+    }
+}
@@ -1,9 +1,11 @@
 package tz.core.cluster;
 
 import tz.base.common.Buffer;
+import tz.base.common.Util;
 import tz.base.exception.RaftException;
 import tz.base.log.Log;
 import tz.base.poll.Event;
+import tz.base.poll.TimerWheel;
 import tz.base.record.ClusterRecord;
 import tz.base.record.NodeRecord;
 import tz.base.record.TransportRecord;
@@ -14,6 +16,10 @@ import tz.core.cluster.request.*;
 import tz.core.cluster.state.Response;
 import tz.core.cluster.state.Session;
 import tz.core.cluster.state.State;
+import tz.core.host.GroupReady;
+import tz.core.host.GroupWorker;
+import tz.core.host.RaftHost;
+import tz.core.host.SharedStore;
 import tz.core.msg.*;
 import tz.core.worker.IOWorker.IOOwner;
 import tz.core.worker.IOWorker.IOWorker;
@@ -28,6 +34,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.CRC32;
 
 public class Cluster extends Worker implements RaftCluster, IOOwner
@@ -39,9 +48,11 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
         LEADER
     }
 
-    private static final int ELECTION_TIMEOUT = 2000000;
+    private static final int ROUND_HISTORY     = 1024;
+    private static final int MAX_TRANSFER_SIZE = 4 * 1024 * 1024;
+    private static final ByteBuffer EMPTY_BUF  = ByteBuffer.allocate(0);
 
-    private final IOWorker ioWorker;
+    private final IOWorker[] ioWorkers;
     private final Callbacks callbacks;
     private final Config config;
     private final State state;
@@ -54,12 +65,45 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
     private final Map<String, Node> nodes;
     private final Map<String, Node> activeNodes;
     private final Map<String, Node> clients;
+
+    //Read only clients send queries only, they are kept on leader changes
+    private final Map<String, Node> readOnlyClients;
+
+    //Peers connected to send a JoinReq, they are not in configuration yet
+    private final Map<String, Node> joining;
+    private ConfigChange configChange;
     private final Map<Long, Request> requests;
+
+    //Client requests of this iteration, appended to the store as a batch
+    private final List<Entry> proposals;
+    private final List<Request> proposalRequests;
+    private int proposalBytes;
+
+    //Client nodes with responses to send on flush
+    private final List<Node> responders;
+
+    //Outgoing messages of this iteration, handed to IO workers on flush
+    private final Map<Connection, Deque<Msg>> outgoings;
+
+    //Handled messages, released on flush once entries are in the store
+    private final List<Msg> receivedMsgs;
+
+    //Encoded AppendReq frames, shared by followers at the same position
+    private final Map<Long, AppendFrame> frames;
+    private final Deque<AppendFrame> sentFrames;
+
+    //Admission control, leader rejects requests while it is overloaded
+    private final Metrics metrics;
+    private long uncommittedBytes;
+    private boolean busy;
     private final List<Node> grantedVotes;
     private final List<Node> preVotes;
     private long preVoteTerm;
 
     private final List<Node> readyNodes;
+    private final Deque<ReadRequest> pendingReads;
+    private final Deque<ReadRequest> forwardedReads;
+    private final Deque<ReadRequest> appliedReads;
 
     private NodeRecord nodeRecord;
     private ClusterRecord clusterRecord;
@@ -77,20 +121,106 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
     private Node own;
 
     private Buffer configBuf;
+    private final Random random;
     private ElectionTimer electionTimer;
+    private HeartbeatTimer heartbeatTimer;
+    private long electionTimeout;
+    private long leaderContact;
+    private int voters;
+    private boolean leaderLost;
+    private boolean heartbeatDue;
     private boolean termStarted;
 
+    //Leader is removed from configuration, steps down once the committed
+    //batch is applied, so the config change completes before
+    private boolean stepDownRequired;
+
+    //Broadcast rounds, followers echo round in AppendResp
+    private long round;
+    private long leaderRound;
+    private boolean readBarrier;
+    private final long[] roundTimestamps;
+    private long[] ackRounds;
+
+    //Commit tracker, match indexes of peers are collected here to select
+    //quorum index
+    private long[] matchIndexes;
+    private boolean commitCheckRequired;
+
+    //Follower reads, queries wait for read index from the leader
+    private long readIndexId;
+    private boolean readIndexRequired;
+
+    //Leadership transfer, proposals are rejected while target catches up
+    private Node transferTarget;
+    private CompletableFuture<Boolean> transferFuture;
+    private TransferTimer transferTimer;
+    private boolean timeoutNowSent;
+
+    //Target may have started an election after TimeoutNow, lease is not used
+    //until a quorum acknowledges a round sent after the transfer ended
+    private long leaseRound;
+
+    //Multi-raft, group runs on a thread of the host and shares connections
+    private final RaftHost host;
+    private final GroupWorker groupWorker;
+    private final int group;
+    private final Queue<Event> groupEvents;
+    private final Deque<Event> localEvents;
+    private final AtomicBoolean groupScheduled;
+    private final GroupReady groupReady;
+
 
     public Cluster(String clusterName, String nodeName, String workingDir,
                    Config config, Callbacks callbacks, State state) throws IOException
     {
-        super(new Log(callbacks, config.logLevel), clusterName, false);
+        this(null, null, 0, clusterName, nodeName,
+             workingDir, config, callbacks, state);
+    }
+
+    /**
+     * Create new cluster as a raft group of a host, group runs on a thread of
+     * the host and shares host's connections to peers
+     *
+     * @param host        host, null for a standalone cluster
+     * @param groupWorker host thread to run on
+     * @param group       group id, unique in the host
+     */
+    public Cluster(RaftHost host, GroupWorker groupWorker, int group,
+                   String clusterName, String nodeName, String workingDir,
+                   Config config, Callbacks callbacks, State state) throws IOException
+    {
+        super(new Log(callbacks, config.logLevel), clusterName, groupWorker);
 
-        this.ioWorker  = new IOWorker(this, log, clusterName + " IO Worker");
-        this.callbacks = callbacks;
-        this.config    = config;
-        this.state     = state;
+        this.ioWorkers   = host != null ? host.getIoWorkers() :
+                                          IOWorker.create(this, log, clusterName,
+                                                          config.ioWorkerCount);
+        this.callbacks   = callbacks;
+        this.config      = config;
+        this.state       = state;
+        this.host        = host;
+        this.groupWorker = groupWorker;
+        this.group       = group;
 
+        //Groups of a host use the timers of their group worker
+        if (groupWorker == null && config.timerWheel) {
+            setTimer(new TimerWheel(config.timerTick, 256));
+        }
+
+        if (groupWorker == null) {
+            setSpinTime(config.spinTime);
+        }
+
+        if (host == null) {
+            for (IOWorker ioWorker : ioWorkers) {
+                ioWorker.setSpinTime(config.spinTime);
+            }
+        }
+
+        groupEvents    = new ConcurrentLinkedQueue<>();
+        localEvents    = new ArrayDeque<>();
+        groupScheduled = new AtomicBoolean(false);
+        groupReady     = new GroupReady(this);
 
         nodeRecord     = new NodeRecord(nodeName, "");
         clusterRecord  = new ClusterRecord(clusterName);
@@ -101,21 +231,43 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
 
         snapshotReader = new SnapshotReader(this, path, clusterName, state);
         snapshotWriter = new SnapshotWriter(this, state, path, clusterName);
-        store          = new Store(this, path, config.storeSize);
+        store          = host != null && host.getSharedLog() != null ?
+                         new SharedStore(this, host.getSharedLog(), path) :
+                         new Store(this, path, config.storeSize);
 
         role           = Role.FOLLOWER;
         configBuf      = new Buffer(ByteBuffer.allocateDirect(1024 * 1024));
         nodes          = new HashMap<>();
         activeNodes    = new HashMap<>();
         clients        = new HashMap<>();
+        joining        = new HashMap<>();
         grantedVotes   = new ArrayList<>();
         requests       = new HashMap<>();
+        proposals      = new ArrayList<>();
+        proposalRequests = new ArrayList<>();
+        responders       = new ArrayList<>();
+        readOnlyClients  = new HashMap<>();
+        outgoings        = new HashMap<>();
+        receivedMsgs     = new ArrayList<>();
+        metrics          = new Metrics();
+        frames           = new HashMap<>();
+        sentFrames       = new ArrayDeque<>();
         readyNodes     = new ArrayList<>();
         preVotes       = new ArrayList<>();
         preVoteTerm    = -1;
-        electionTimer  = new ElectionTimer(this, true,
-                                           new Random().nextInt(150) + 2500,
-                                           timestamp() + 500);
+        pendingReads   = new ArrayDeque<>();
+        forwardedReads = new ArrayDeque<>();
+        appliedReads   = new ArrayDeque<>();
+        roundTimestamps = new long[ROUND_HISTORY];
+        ackRounds      = new long[8];
+        matchIndexes   = new long[8];
+        random         = new Random();
+        electionTimeout = nextElectionTimeout();
+        electionTimer  = new ElectionTimer(this, true, electionTimeout,
+                                           timestamp() + electionTimeout);
+        heartbeatTimer = new HeartbeatTimer(this, true,
+                                            Math.max(1, config.heartbeatInterval / 2),
+                                            0);
         snapshotReceiver = new SnapshotReceiver(this);
         addTimer(electionTimer);
         state.setCluster(this);
@@ -289,7 +441,7 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
         }
 
         for (TransportRecord record : nodeRecord.transports) {
-            ioWorker.addEndpoint(record);
+            ioWorkers[0].addEndpoint(record);
         }
 
         for (NodeRecord record : clusterRecord.peers) {
@@ -300,13 +452,111 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
             }
         }
 
-        ioWorker.start();
-        start();
+        updateVoters();
+
+        //Host starts the threads of its groups
+        if (host == null) {
+            for (IOWorker ioWorker : ioWorkers) {
+                ioWorker.start();
+            }
+            start();
+        }
     }
 
+    /**
+     * Get IO worker listening on the endpoints
+     * @return first IO worker
+     */
     public IOWorker getIoWorker()
     {
-        return ioWorker;
+        return ioWorkers[0];
+    }
+
+    /**
+     * Select IO worker for a new connection, connections of a host are
+     * balanced by the host
+     *
+     * @return IO worker with the least connections
+     */
+    @Override
+    public IOWorker selectIoWorker()
+    {
+        return host != null ? host.selectIoWorker() :
+                              IOWorker.leastLoaded(ioWorkers);
+    }
+
+    /**
+     * Get raft group id, it is always 0 if cluster is not a part of host
+     * @return group id
+     */
+    public int getGroup()
+    {
+        return group;
+    }
+
+    public boolean isHosted()
+    {
+        return host != null;
+    }
+
+    public RaftHost getHost()
+    {
+        return host;
+    }
+
+    /**
+     * Add event, events of a hosted group are queued in the group and the host
+     * thread is notified once until group handles its events
+     *
+     * @param event event
+     */
+    @Override
+    public void addEvent(Event event)
+    {
+        if (host == null) {
+            super.addEvent(event);
+            return;
+        }
+
+        groupEvents.add(event);
+        if (groupScheduled.compareAndSet(false, true)) {
+            groupWorker.addEvent(groupReady);
+        }
+    }
+
+    /**
+     * Host thread callback, group has events
+     */
+    public void handleGroupReady()
+    {
+        groupScheduled.set(false);
+
+        Event event;
+        while ((event = groupEvents.poll()) != null) {
+            localEvents.add(event);
+        }
+
+        if (host.getSharedLog() == null) {
+            handleEvents(localEvents);
+            return;
+        }
+
+        //Shared log is synced once for the groups of the worker, then they flush
+        runEvents(localEvents);
+        handleReadyNodes();
+        appendProposals();
+        groupWorker.addFlush(this);
+    }
+
+    /**
+     * Add heartbeat to the batch of the host thread
+     *
+     * @param conn      connection
+     * @param appendReq heartbeat
+     */
+    public void addHeartbeat(Connection conn, AppendReq appendReq)
+    {
+        groupWorker.addHeartbeat(conn, appendReq);
     }
 
     public String getClusterName()
@@ -342,12 +592,45 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
         clusterRecord.addNode(nodeRecord);
     }
 
+    @Override
+    public CompletableFuture<Boolean> addPeer(NodeRecord record)
+    {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        addEvent(new AddPeer(this, record, future));
+
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removePeer(String nodeName)
+    {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        addEvent(new RemovePeer(this, nodeName, future));
+
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> transferLeadership(String nodeName)
+    {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        addEvent(new TransferLeadership(this, nodeName, future));
+
+        return future;
+    }
+
     @Override
     public ClusterRecord getClusterRecord()
     {
         return null;
     }
 
+    @Override
+    public Metrics getMetrics()
+    {
+        return metrics;
+    }
+
     @Override
     public void sendListenerUpdate(Listener listener, boolean active)
     {
@@ -381,7 +664,7 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
             case INCOMING:
                 break;
             case OUTGOING_SUCCEED:
-                node = conn.getNode();
+                node = conn.getNode(group);
                 node.setConnected();
                 node.sendConnectReq(clusterRecord.getName(),
                                     nodeRecord.getName(), false);
@@ -389,25 +672,34 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
                 break;
 
             case OUTGOING_FAILED:
-                node = conn.getNode();
+                node = conn.getNode(group);
                 node.reconnect();
                 logInfo("Connection attempt failed : ", node);
                 break;
 
             case DISCONNECTED:
-                if (!conn.hasNode()) {
+                node = conn.getNode(group);
+                if (node == null || node.getConnection() != conn) {
                     break;
                 }
-                node = (Node) conn.getNode();
                 logInfo("Disconnected : ", node);
 
-                node = (Node) conn.getNode();
+                if (joining.get(node.getName()) == node) {
+                    joining.remove(node.getName());
+                    break;
+                }
+
                 if (node.isClient()) {
-                    clients.remove(node.getName());
+                    clients.remove(node.getName(), node);
+                    readOnlyClients.remove(node.getName(), node);
                 }
                 else if (node.isPeer()) {
                     activeNodes.remove(node.getName());
                     node.reconnect();
+                    if (node == leader) {
+                        failForwardedReads();
+                        handleLeaderLost();
+                    }
                 }
                 break;
         }
@@ -423,20 +715,23 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
     public void handleIncomingMsg(Connection conn, Msg msg)
     {
         try {
-            Node node = conn.getNode();
+            Node node = conn.getNode(group);
             if (node == null) {
                 //This must be ConnectReq
+                addReceived(msg);
                 handleConnectReqMsg(conn, (ConnectReq) msg);
                 return;
             }
 
-            node = conn.getNode();
             node.addIncomingMsg(msg);
             readyNodes.add(node);
         }
         catch (Exception e) {
             logError(e);
-            ioWorker.cancelConnection(conn);
+            //Connections of the host are shared by other groups
+            if (host == null) {
+                conn.getWorker().cancelConnection(conn);
+            }
         }
     }
 
@@ -448,195 +743,824 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
 
     public void handleClientReq(Node node, ClientReq req)
     {
-        Entry entry = new Entry(req.getStateId(), node.getId(),
-                                req.getSequence(), req.getAcknowledge(),
-                                currentTerm,  req.getData());
-        store.add(entry);
-        requests.put(entry.getIndex(), new RequestCompleted(node));
+        if (role == Role.LEADER && transferTarget == null &&
+                                    !admit(node, req.getSequence(), 1)) {
+            return;
+        }
+
+        propose(node, req);
     }
 
-    public void handleConnectReqMsg(Connection conn, ConnectReq req)
+    /**
+     * Add client request to the proposals, admission is checked by the caller
+     * @param node client
+     * @param req  request
+     */
+    private void propose(Node node, ClientReq req)
     {
-        if (req.isClient()) {
-            if (role != Role.LEADER && !termStarted) {
-                ioWorker.addOutgoingMsg(conn, new ConnectResp(false, clusterRecord, 0, 0));
-                return;
-            }
+        if (role != Role.LEADER || transferTarget != null) {
+            node.sendClientResp(req.getSequence(), false, EMPTY_BUF);
+            return;
+        }
 
-            Node node = clients.get(req.getName());
-            if (node != null) {
-                node.disconnect();
-                node.setConnection(conn);
-            }
-            else {
-                node = new Node(this, conn, nodeRecord,
-                            new NodeRecord(req.getName(), ""), Node.Type.CLIENT);
-                clients.put(req.getName(), node);
-            }
+        Entry entry = new Entry(req.getStateId(), node.getId(),
+                                req.getSequence(), req.getAcknowledge(),
+                                currentTerm,  req.getData());
+        if (entry.encodedLen() > store.maxEntrySize()) {
+            node.sendClientResp(req.getSequence(), false, EMPTY_BUF);
+            return;
+        }
 
-            createInternalEntry(new RegisterCommand(req.getName()),
-                                new ClientRegister(node));
+        proposals.add(entry);
+        proposalRequests.add(new RequestCompleted(node));
+        proposalBytes += entry.encodedLen();
 
+        if (proposalBytes >= config.proposalBatchSize) {
+            appendProposals();
         }
-        else {
-            if (!clusterRecord.name.equals(req.getClusterName())) {
-                ioWorker.cancelConnection(conn);
-                return;
-            }
+    }
 
-            Node node = nodes.get(req.getName());
-            if (node != null && node.isDisconnected()) {
-                node.setConnection(conn);
-                activeNodes.put(req.getName(), node);
-                node.sendConnectResp(true, clusterRecord, 0, 0);
-            }
-            else {
-                ioWorker.cancelConnection(conn);
-            }
-        }
+    /**
+     * Client has responses to send
+     * @param node client node
+     */
+    public void addResponder(Node node)
+    {
+        responders.add(node);
     }
 
-    public void handleConnectRespMsg(Node node, ConnectResp connack)
+    private void flushResponses()
     {
-        if (connack.isSuccessful()) {
-            activeNodes.put(node.getName(), node);
+        for (Node node : responders) {
+            node.flushResponses();
         }
+
+        responders.clear();
     }
 
-    public void handlePreVoteReq(Node node, PreVoteReq req)
+    /**
+     * Queue message of a node, messages of a connection are handed to its IO
+     * worker in one batch at the end of the iteration
+     *
+     * @param conn connection
+     * @param msg  message
+     */
+    public void addOutgoingMsg(Connection conn, Msg msg)
     {
-        boolean result = false;
-
-        if (role == Role.LEADER ||
-            leader != null ||
-            req.getTerm() < currentTerm ||
-            req.getLastLogIndex() < store.getLastIndex()) {
-            result = false;
+        if (conn == null) {
+            msg.release();
+            return;
         }
-        else if ((req.getTerm() > currentTerm)) {
-            result = true;
+
+        Deque<Msg> msgs = outgoings.get(conn);
+        if (msgs == null) {
+            msgs = new ArrayDeque<>();
+            outgoings.put(conn, msgs);
         }
 
-        node.sendPreVoteResp(currentTerm, store.getLastIndex(), result);
+        msgs.add(msg);
     }
 
-    public void handlePreVoteResp(Node node, PreVoteResp req)
+    /**
+     * Add handled message, messages may be decoded in place on the receive
+     * buffer of the connection, they are released at the end of flush, after
+     * proposals are appended to the store
+     *
+     * @param msg received message
+     */
+    public void addReceived(Msg msg)
     {
-        if (role != Role.CANDIDATE || preVoteTerm == -1) {
-            logWarn("Unexpected message from ", node, " msg : ", req);
-            return;
+        receivedMsgs.add(msg);
+    }
+
+    private void releaseReceived()
+    {
+        for (Msg msg : receivedMsgs) {
+            msg.release();
         }
 
-        if (req.getTerm() > preVoteTerm) {
-            currentTerm = req.getTerm();
-            writeMeta();
-            setRole(Role.FOLLOWER);
-            preVoteTerm = -1;
-            preVotes.clear();
+        receivedMsgs.clear();
+    }
+
+    private void flushOutgoings()
+    {
+        if (outgoings.isEmpty()) {
             return;
         }
 
-        if (req.isGranted()) {
-            preVotes.add(node);
+        for (Map.Entry<Connection, Deque<Msg>> entry : outgoings.entrySet()) {
+            entry.getKey().getWorker().addOutgoingMsgs(entry.getKey(),
+                                                       entry.getValue());
         }
 
-        if (preVotes.size() >= nodes.size() / 2 + 1) {
-            preVotes.clear();
-            preVoteTerm = -1;
-            grantedVotes.clear();
-
-            votedFor = nodeRecord.name;
-            currentTerm++;
-            writeMeta();
+        outgoings.clear();
+    }
 
-            handleReqVoteResp(own, new ReqVoteResp(currentTerm,
-                                                   store.getLastIndex(), true));
+    public void handleClientReqBatch(Node node, ClientReqBatch batch)
+    {
+        //Batch is accepted or rejected as a whole
+        final List<ClientReq> list = batch.getRequests();
+        if (role == Role.LEADER && transferTarget == null &&
+                            !admit(node, batch.getSequence(), list.size())) {
+            return;
+        }
 
-            for (Node active : activeNodes.values()) {
-                active.sendReqVoteReq(currentTerm, store.getLastIndex(),
-                                      store.getLastTerm(), false);
-            }
+        for (int i = 0; i < list.size(); i++) {
+            propose(node, list.get(i));
         }
     }
 
     /**
-     * Handle requestVoteMsg callback
-     * @param node        message sender node
-     * @param requestVote requestVoteMessage
+     * Check if requests of the client are accepted, client busy is sent for
+     * rejected ones. Once a request is rejected, later requests of the client
+     * are rejected until the rejected one is sent again, so requests are not
+     * reordered
+     *
+     * @param node     client
+     * @param sequence sequence of the first request
+     * @param count    request count
+     * @return         true if requests are accepted
      */
-    public void handleReqVoteReq(Node node, ReqVoteReq requestVote)
+    private boolean admit(Node node, long sequence, int count)
     {
-        boolean result = false;
-
-        if (role == Role.LEADER ||
-            leader != null ||
-            requestVote.getTerm() < currentTerm ||
-            requestVote.getLastLogIndex() < store.getLastIndex()) {
-            result = false;
-        }
-        else if ((requestVote.getTerm() > currentTerm) ||
-                 (votedFor == null                   ) ||
-                 (votedFor.equals(node.getName())))
-        {
-            currentTerm = requestVote.getTerm();
-            votedFor    = node.getName();
+        final long rejected = node.getRejectedSequence();
 
-            writeMeta();
+        if ((rejected != -1 && sequence > rejected) || isBusy(node)) {
+            if (rejected == -1 || sequence < rejected) {
+                node.setRejectedSequence(sequence);
+            }
 
-            setRole(Role.FOLLOWER);
-            leader = node;
+            node.sendClientBusy(sequence, count, config.busyRetryInterval);
+            metrics.addRejected(count);
+            return false;
+        }
 
-            result = true;
+        if (rejected != -1 && sequence + count > rejected) {
+            node.setRejectedSequence(-1);
         }
 
-        node.sendReqVoteResp(currentTerm, store.getLastIndex(), result);
+        return true;
     }
 
     /**
-     * Handle requestVoteMsg callback
-     * @param node            message sender node
-     * @param requestVoteResp requestVoteMessage
+     * Check if leader accepts requests of the client
+     * @param node client
+     * @return     true if leader is overloaded or client is not reading its
+     *             responses
      */
-    public void handleReqVoteResp(Node node, ReqVoteResp requestVoteResp)
+    private boolean isBusy(Node node)
     {
-        if (role != Role.CANDIDATE) {
-            return;
-        }
-
-        if (requestVoteResp.getTerm() > currentTerm) {
-            currentTerm = requestVoteResp.getTerm();
-            writeMeta();
-            setRole(Role.FOLLOWER);
-            return;
+        if (busy || uncommittedBytes + proposalBytes > config.maxUncommittedBytes) {
+            return true;
         }
 
-        if (requestVoteResp.isVoteGranted()) {
-            grantedVotes.add(node);
+        Connection conn = node.getConnection();
 
-            //Check if we got enough votes to become a leader
-            if (grantedVotes.size() >= nodes.size() / 2 + 1) {
-                setRole(Role.LEADER);
-                for (Node follower : nodes.values()) {
-                    follower.setNextIndex(store.getLastIndex() + 1);
-                    follower.setMatchIndex(store.getLastIndex());
-                }
+        return conn != null && conn.getQueuedMsgs() > config.maxQueuedMsgs;
+    }
 
-                createInternalEntry(new NoOPCommand(), new TermStart());
+    /**
+     * Evaluate load of the leader once per iteration, uncommitted bytes,
+     * requests waiting for commit and outgoing queues of the peers
+     */
+    private void checkAdmission()
+    {
+        int maxQueued = 0;
+        for (Node node : activeNodes.values()) {
+            Connection conn = node.getConnection();
+            if (conn != null) {
+                maxQueued = Math.max(maxQueued, conn.getQueuedMsgs());
             }
         }
+
+        final boolean overloaded = uncommittedBytes > config.maxUncommittedBytes ||
+                                   requests.size() > config.maxPendingRequests ||
+                                   maxQueued > config.maxQueuedMsgs;
+
+        if (overloaded != busy) {
+            logWarn(overloaded ? "Leader is busy, rejecting requests, " :
+                                 "Leader accepts requests, ",
+                    "uncommitted bytes : ", uncommittedBytes,
+                    " pending requests : ", requests.size(),
+                    " max queued msgs : ", maxQueued);
+        }
+
+        busy = overloaded;
+        metrics.setBusy(busy);
+        metrics.setLoad(uncommittedBytes, requests.size(), maxQueued);
     }
 
     /**
-     * Handle AppendEntriesMsg callback, this message is sent by leader to
-     * followers
-     *
-     * @param node leader node
-     * @param req  AppendReq message
+     * Append pending client requests to the store as one batch
      */
-    public void handleAppendReq(Node node, AppendReq req)
+    private void appendProposals()
     {
-        if (req.getTerm() < currentTerm) {
-            node.sendAppendResp(store.getLastIndex(), currentTerm, false);
+        if (proposals.isEmpty()) {
+            return;
+        }
+
+        store.add(proposals);
+        uncommittedBytes += proposalBytes;
+
+        for (int i = 0; i < proposals.size(); i++) {
+            requests.put(proposals.get(i).getIndex(), proposalRequests.get(i));
+        }
+
+        proposals.clear();
+        proposalRequests.clear();
+        proposalBytes = 0;
+    }
+
+    public void handleConnectReqMsg(Connection conn, ConnectReq req)
+    {
+        if (req.isClient()) {
+            if (req.isReadOnly()) {
+                handleReadOnlyConnect(conn, req);
+                return;
+            }
+
+            if ((role != Role.LEADER && !termStarted) || transferTarget != null) {
+                ConnectResp resp = new ConnectResp(false, clusterRecord, 0, 0);
+                resp.setGroup(group);
+                addOutgoingMsg(conn, resp);
+                return;
+            }
+
+            Node node = clients.get(req.getName());
+            if (node != null) {
+                node.disconnect();
+                node.setConnection(conn);
+                //Client sends all pending requests again on reconnect
+                node.setRejectedSequence(-1);
+            }
+            else {
+                node = new Node(this, conn, nodeRecord,
+                            new NodeRecord(req.getName(), ""), Node.Type.CLIENT);
+                clients.put(req.getName(), node);
+            }
+
+            createInternalEntry(new RegisterCommand(req.getName()),
+                                new ClientRegister(node));
+
+        }
+        else {
+            if (!clusterRecord.name.equals(req.getClusterName())) {
+                rejectConnection(conn, req);
+                return;
+            }
+
+            //Shared connection of a host, peer reattaches its group
+            Node node = nodes.get(req.getName());
+            if (node != null && (node.isDisconnected() || host != null)) {
+                node.setConnection(conn);
+                activeNodes.put(req.getName(), node);
+                node.sendConnectResp(true, clusterRecord, 0, 0);
+            }
+            else if (node == null) {
+                //Peer is not a member yet, it may ask to join
+                NodeRecord record = new NodeRecord(req.getName(), "");
+                record.setLearner();
+
+                node = new Node(this, conn, nodeRecord, record, Node.Type.PEER);
+                joining.put(req.getName(), node);
+                node.sendConnectResp(true, clusterRecord, 0, 0);
+            }
+            else {
+                rejectConnection(conn, req);
+            }
+        }
+    }
+
+    /**
+     * Accept read only clients on any peer, they only send queries, so they
+     * don't have a session on the log
+     *
+     * @param conn connection
+     * @param req  ConnectReq message
+     */
+    private void handleReadOnlyConnect(Connection conn, ConnectReq req)
+    {
+        Node node = readOnlyClients.get(req.getName());
+        if (node != null) {
+            node.disconnect();
+            node.setConnection(conn);
+        }
+        else {
+            node = new Node(this, conn, nodeRecord,
+                            new NodeRecord(req.getName(), ""), Node.Type.CLIENT);
+            readOnlyClients.put(req.getName(), node);
+        }
+
+        node.sendConnectResp(true, clusterRecord, 0, 0);
+    }
+
+    private void rejectConnection(Connection conn, ConnectReq req)
+    {
+        if (host == null) {
+            conn.getWorker().cancelConnection(conn);
+        }
+        else {
+            logWarn("Rejected connect request on shared connection : ", req);
+        }
+    }
+
+    public void handleConnectRespMsg(Node node, ConnectResp connack)
+    {
+        if (connack.isSuccessful()) {
+            activeNodes.put(node.getName(), node);
+
+            //Peer doesn't know us yet, ask to be added to the cluster
+            ClusterRecord remote = connack.getClusterRecord();
+            if (nodeRecord.isLearner() && remote != null &&
+                remote.getRecord(nodeRecord.getName()) == null) {
+                ClusterRecord record = new ClusterRecord(clusterRecord.getName());
+                record.addNode(nodeRecord);
+                node.sendJoinReq(record);
+            }
+        }
+    }
+
+    /**
+     * Handle JoinReq, leader adds the peer as a learner and promotes it once
+     * it catches up, response is sent when change is over
+     *
+     * @param node sender node
+     * @param req  JoinReq message
+     */
+    public void handleJoinReq(Node node, JoinReq req)
+    {
+        NodeRecord record = req.record.getRecord(node.getName());
+        if (record == null || role != Role.LEADER) {
+            node.sendJoinResp(clusterRecord, false);
+            return;
+        }
+
+        logInfo("Join request from : ", record);
+
+        final String name = node.getName();
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        future.thenAccept(result -> {
+            Node peer = nodes.get(name);
+            if (peer == null) {
+                peer = node;
+            }
+
+            if (peer.getConnection() != null) {
+                peer.sendJoinResp(clusterRecord, result);
+            }
+        });
+
+        handleAddPeer(record, future);
+    }
+
+    public void handleJoinResp(Node node, JoinResp resp)
+    {
+        logInfo("Join request result : ", resp.result, " from : ", node);
+    }
+
+    /**
+     * Add a peer, peer is added as a learner and promoted to voter once it
+     * is close enough to the leader's log
+     *
+     * @param record peer's record
+     * @param future completed when peer becomes a voter or change is aborted
+     */
+    public void handleAddPeer(NodeRecord record, CompletableFuture<Boolean> future)
+    {
+        if (!isConfigChangeAllowed() || record.isClient()) {
+            future.complete(false);
+            return;
+        }
+
+        NodeRecord current = clusterRecord.getRecord(record.getName());
+        if (current != null && !current.isLearner()) {
+            future.complete(true);
+            return;
+        }
+
+        logInfo("Adding peer : ", record);
+
+        final long deadline = timestamp() + config.catchUpTimeout;
+        if (current != null) {
+            configChange = new ConfigChange(current, ConfigChange.Stage.CATCH_UP,
+                                            deadline, future);
+            checkCatchUp();
+            return;
+        }
+
+        NodeRecord learner = record.copy();
+        learner.setLearner();
+        learner.setConnected(false);
+
+        configChange = new ConfigChange(learner, ConfigChange.Stage.ADD_LEARNER,
+                                        deadline, future);
+
+        ClusterRecord next = clusterRecord.copy();
+        next.addNode(learner);
+        appendConfig(next);
+    }
+
+    /**
+     * Remove a peer from configuration
+     *
+     * @param name   peer name
+     * @param future completed when removal is committed or aborted
+     */
+    public void handleRemovePeer(String name, CompletableFuture<Boolean> future)
+    {
+        if (!isConfigChangeAllowed()) {
+            future.complete(false);
+            return;
+        }
+
+        NodeRecord current = clusterRecord.getRecord(name);
+        if (current == null) {
+            future.complete(true);
+            return;
+        }
+
+        logInfo("Removing peer : ", current);
+
+        configChange = new ConfigChange(current, ConfigChange.Stage.REMOVE,
+                                        0, future);
+
+        ClusterRecord next = clusterRecord.copy();
+        next.removeRecord(name);
+        appendConfig(next);
+    }
+
+    private boolean isConfigChangeAllowed()
+    {
+        return role == Role.LEADER && termStarted &&
+               configChange == null && transferTarget == null;
+    }
+
+    private void appendConfig(ClusterRecord next)
+    {
+        Entry entry = createInternalEntry(new ConfigCommand(next),
+                                          new ConfigUpdate(next));
+        configChange.setIndex(entry.getIndex());
+    }
+
+    /**
+     * Promote learner once its log is close to the leader's, so the quorum
+     * doesn't wait for it after promotion
+     */
+    private void checkCatchUp()
+    {
+        if (configChange == null ||
+            configChange.getStage() != ConfigChange.Stage.CATCH_UP) {
+            return;
+        }
+
+        Node node = nodes.get(configChange.getName());
+        if (node == null ||
+            node.getMatchIndex() + config.catchUpLag < store.getLastIndex()) {
+            return;
+        }
+
+        logInfo("Promoting learner : ", node, " match index : ",
+                node.getMatchIndex());
+
+        ClusterRecord next = clusterRecord.copy();
+        next.getRecord(configChange.getName()).setPeer();
+
+        configChange.setStage(ConfigChange.Stage.PROMOTE);
+        appendConfig(next);
+    }
+
+    private void completeConfigChange(boolean result)
+    {
+        ConfigChange change = configChange;
+        configChange = null;
+        change.getFuture().complete(result);
+    }
+
+    /**
+     * Apply committed configuration, nodes for new peers are created and
+     * removed peers are disconnected. Configuration takes effect on commit
+     * and leader allows a single change at a time.
+     *
+     * @param record new configuration
+     */
+    public void applyConfig(ClusterRecord record)
+    {
+        ClusterRecord next = record.copy();
+
+        for (int i = 0; i < next.peers.size(); i++) {
+            NodeRecord peer = next.peers.get(i);
+            if (peer.isClient()) {
+                continue;
+            }
+
+            if (peer.equals(nodeRecord)) {
+                if (peer.isLearner()) {
+                    nodeRecord.setLearner();
+                }
+                else if (nodeRecord.isLearner()) {
+                    nodeRecord.setPeer();
+                }
+
+                next.peers.set(i, nodeRecord);
+                continue;
+            }
+
+            Node node = nodes.get(peer.getName());
+            if (node != null) {
+                node.setRemote(peer);
+                continue;
+            }
+
+            node = new Node(this, null, nodeRecord, peer, Node.Type.PEER);
+            node.setNextIndex(store.getLastIndex() + 1);
+            node.setMatchIndex(0);
+            nodes.put(node.getName(), node);
+
+            //Reuse connection of the JoinReq
+            Node pending = joining.remove(node.getName());
+            if (pending != null && pending.getConnection() != null) {
+                node.setConnection(pending.getConnection());
+                activeNodes.put(node.getName(), node);
+            }
+            else {
+                node.reconnect();
+            }
+        }
+
+        Iterator<Node> it = nodes.values().iterator();
+        while (it.hasNext()) {
+            Node node = it.next();
+            if (node != own && next.getRecord(node.getName()) == null) {
+                logInfo("Peer removed : ", node);
+                it.remove();
+                activeNodes.remove(node.getName());
+                node.stopReconnectTimer();
+                node.disconnect();
+                if (node == leader) {
+                    leader = null;
+                }
+            }
+        }
+
+        //Removed from configuration, never start an election again
+        if (next.getRecord(nodeRecord.getName()) == null) {
+            logInfo("Local node is removed from configuration");
+            nodeRecord.setLearner();
+            if (role == Role.LEADER) {
+                stepDownRequired = true;
+            }
+            else if (role != Role.FOLLOWER) {
+                setRole(Role.FOLLOWER);
+            }
+        }
+
+        clusterRecord = next;
+        updateVoters();
+        writeMeta();
+    }
+
+    public void handlePreVoteReq(Node node, PreVoteReq req)
+    {
+        boolean result = false;
+
+        if (role == Role.LEADER ||
+            nodeRecord.isLearner() ||
+            hasActiveLeader() ||
+            req.getTerm() < currentTerm ||
+            req.getLastLogIndex() < store.getLastIndex()) {
+            result = false;
+        }
+        else if ((req.getTerm() > currentTerm)) {
+            result = true;
+        }
+
+        node.sendPreVoteResp(currentTerm, store.getLastIndex(), result);
+    }
+
+    public void handlePreVoteResp(Node node, PreVoteResp req)
+    {
+        if (role != Role.CANDIDATE || preVoteTerm == -1) {
+            logWarn("Unexpected message from ", node, " msg : ", req);
+            return;
+        }
+
+        if (req.getTerm() > preVoteTerm) {
+            currentTerm = req.getTerm();
+            writeMeta();
+            setRole(Role.FOLLOWER);
+            preVoteTerm = -1;
+            preVotes.clear();
+            return;
+        }
+
+        if (req.isGranted() && !node.isLearner()) {
+            preVotes.add(node);
+        }
+
+        if (preVotes.size() >= quorum()) {
+            preVotes.clear();
+            preVoteTerm = -1;
+            startElection(false);
+        }
+    }
+
+    /**
+     * Increment term, vote for self and request votes from peers
+     *
+     * @param leaderTransfer true if election is started by leader's request,
+     *                       peers grant vote even if they have a leader
+     */
+    private void startElection(boolean leaderTransfer)
+    {
+        grantedVotes.clear();
+
+        votedFor = nodeRecord.name;
+        currentTerm++;
+        writeMeta();
+
+        handleReqVoteResp(own, new ReqVoteResp(currentTerm,
+                                               store.getLastIndex(), true));
+
+        for (Node active : activeNodes.values()) {
+            if (!active.isLearner()) {
+                active.sendReqVoteReq(currentTerm, store.getLastIndex(),
+                                      store.getLastTerm(), leaderTransfer);
+            }
+        }
+    }
+
+    /**
+     * Handle TimeoutNow, leader wants this node to take over leadership.
+     * Pre-vote is skipped as the leader already stepped aside for us.
+     *
+     * @param node leader node
+     * @param msg  TimeoutNow message
+     */
+    public void handleTimeoutNow(Node node, TimeoutNow msg)
+    {
+        if (msg.getTerm() < currentTerm || role == Role.LEADER || node != leader) {
+            return;
+        }
+
+        logInfo("Leadership transfer requested by : ", node);
+
+        preVotes.clear();
+        preVoteTerm = -1;
+        setRole(Role.CANDIDATE);
+        startElection(true);
+    }
+
+    /**
+     * Start leadership transfer
+     *
+     * @param target target node name
+     * @param future completed when transfer is over
+     */
+    public void handleTransferLeadership(String target,
+                                         CompletableFuture<Boolean> future)
+    {
+        Node node = nodes.get(target);
+        if (role != Role.LEADER || !termStarted || transferTarget != null ||
+            node == null || node == own || node.isLearner()) {
+            future.complete(false);
+            return;
+        }
+
+        logInfo("Transferring leadership to : ", node);
+
+        transferTarget = node;
+        transferFuture = future;
+        timeoutNowSent = false;
+        transferTimer  = new TransferTimer(this, false, 0,
+                                           timestamp() + config.electionTimeoutMin);
+        addTimer(transferTimer);
+
+        checkTransfer();
+    }
+
+    /**
+     * Send TimeoutNow once transfer target has all the entries
+     */
+    private void checkTransfer()
+    {
+        if (transferTarget == null || timeoutNowSent) {
+            return;
+        }
+
+        if (activeNodes.get(transferTarget.getName()) == transferTarget &&
+            transferTarget.getMatchIndex() >= store.getLastIndex()) {
+            transferTarget.sendTimeoutNow(currentTerm);
+            timeoutNowSent = true;
+        }
+    }
+
+    /**
+     * Target could not take over in time, continue as leader
+     */
+    public void onTransferTimeout()
+    {
+        if (transferTarget != null) {
+            logWarn("Leadership transfer to ", transferTarget, " timed out");
+            completeTransfer(false);
+        }
+    }
+
+    private void completeTransfer(boolean result)
+    {
+        removeTimer(transferTimer);
+        transferFuture.complete(result);
+
+        if (timeoutNowSent) {
+            leaseRound = round;
+        }
+
+        transferTarget = null;
+        transferFuture = null;
+        transferTimer  = null;
+        timeoutNowSent = false;
+    }
+
+    /**
+     * Handle requestVoteMsg callback
+     * @param node        message sender node
+     * @param requestVote requestVoteMessage
+     */
+    public void handleReqVoteReq(Node node, ReqVoteReq requestVote)
+    {
+        boolean result = false;
+
+        if (((role == Role.LEADER || hasActiveLeader()) &&
+                                        !requestVote.isLeaderTransfer()) ||
+            nodeRecord.isLearner() ||
+            requestVote.getTerm() < currentTerm ||
+            requestVote.getLastLogIndex() < store.getLastIndex()) {
+            result = false;
+        }
+        else if ((requestVote.getTerm() > currentTerm) ||
+                 (votedFor == null                   ) ||
+                 (votedFor.equals(node.getName())))
+        {
+            currentTerm = requestVote.getTerm();
+            votedFor    = node.getName();
+
+            writeMeta();
+
+            setRole(Role.FOLLOWER);
+            leader = node;
+
+            result = true;
+        }
+
+        node.sendReqVoteResp(currentTerm, store.getLastIndex(), result);
+    }
+
+    /**
+     * Handle requestVoteMsg callback
+     * @param node            message sender node
+     * @param requestVoteResp requestVoteMessage
+     */
+    public void handleReqVoteResp(Node node, ReqVoteResp requestVoteResp)
+    {
+        if (role != Role.CANDIDATE) {
+            return;
+        }
+
+        if (requestVoteResp.getTerm() > currentTerm) {
+            currentTerm = requestVoteResp.getTerm();
+            writeMeta();
+            setRole(Role.FOLLOWER);
+            return;
+        }
+
+        if (requestVoteResp.isVoteGranted() && !node.isLearner()) {
+            grantedVotes.add(node);
+
+            //Check if we got enough votes to become a leader
+            if (grantedVotes.size() >= quorum()) {
+                setRole(Role.LEADER);
+                for (Node follower : nodes.values()) {
+                    follower.setNextIndex(store.getLastIndex() + 1);
+                    follower.setMatchIndex(0);
+                }
+
+                own.setMatchIndex(store.getLastIndex());
+
+                createInternalEntry(new NoOPCommand(), new TermStart());
+            }
+        }
+    }
+
+    /**
+     * Handle AppendEntriesMsg callback, this message is sent by leader to
+     * followers
+     *
+     * @param node leader node
+     * @param req  AppendReq message
+     */
+    public void handleAppendReq(Node node, AppendReq req)
+    {
+        if (req.getTerm() < currentTerm) {
+            node.sendAppendResp(store.getLastIndex(), currentTerm, false, req.getRound());
             return;
         }
 
@@ -646,49 +1570,342 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
             writeMeta();
         }
 
-        if (leader != node) {
-            leader = node;
-            setRole(Role.FOLLOWER);
+        if (leader != node) {
+            failForwardedReads();
+            leader = node;
+            setRole(Role.FOLLOWER);
+        }
+
+        //Leadership transfer succeeded if the target is the new leader
+        if (transferTarget != null && role == Role.FOLLOWER) {
+            completeTransfer(node == transferTarget);
+        }
+
+        node.setRtt(req.getRtt());
+        leaderLost = false;
+
+        Entry prev = store.get(req.getPrevLogIndex());
+        long prevTerm = prev != null ? prev.getTerm() : snapshotReader.getTerm();
+        if (prevTerm != req.getPrevLogTerm()) {
+            node.sendAppendResp(store.getLastIndex(), currentTerm, false, req.getRound());
+            return;
+        }
+
+        //Entries we already have are skipped, a conflicting entry truncates
+        //the log, the rest is copied to the store in bulk
+        List<Entry> entries = req.getEntries();
+        int first = 0;
+        for (; first < entries.size(); first++) {
+            Entry entry = entries.get(first);
+            Entry local = store.get(entry.getIndex());
+            if (local == null) {
+                break;
+            }
+
+            if (local.getTerm() != entry.getTerm()) {
+                store.removeFrom(entry.getIndex());
+                break;
+            }
+        }
+
+        if (first < entries.size()) {
+            store.add(req.getRaw(), entries.subList(first, entries.size()));
+        }
+
+        node.sendAppendResp(store.getLastIndex(), currentTerm, true, req.getRound());
+
+        //Frames are capped in size and heartbeats may lag, leader's commit
+        //index can be past the entries verified with this request
+        incrementCommit(Math.min(req.getLeaderCommit(),
+                                 req.getPrevLogIndex() + entries.size()));
+
+    }
+
+    /**
+     * Handle handleAppendResp callback, this message is sent by followers to
+     * the leader
+     *
+     * @param node follower node
+     * @param resp resp message
+     */
+    public void handleAppendResp(Node node, AppendResp resp)
+    {
+        if (resp.isSuccess()) {
+            //Responses might be reordered, match index never goes back
+            if (resp.getIndex() > node.getMatchIndex()) {
+                node.setMatchIndex(resp.getIndex());
+                commitCheckRequired = true;
+            }
+
+            if (resp.getIndex() >= node.getNextIndex()) {
+                node.setNextIndex(resp.getIndex() + 1);
+            }
+        }
+        else {
+            node.setNextIndex(resp.getIndex() + 1);
+
+            if (resp.getTerm() > currentTerm) {
+                currentTerm = resp.getTerm();
+                writeMeta();
+                setRole(Role.FOLLOWER);
+                return;
+            }
+        }
+
+        if (role == Role.LEADER && node != own &&
+            resp.getRound() > node.getAckRound()) {
+            if (resp.getRound() > round - ROUND_HISTORY) {
+                long start = roundTimestamps[(int) (resp.getRound() % ROUND_HISTORY)];
+                node.addRttSample(timestamp() - start);
+            }
+
+            node.setAckRound(resp.getRound());
+            if (resp.getRound() > leaderRound) {
+                checkReads();
+            }
+        }
+
+        if (node == transferTarget) {
+            checkTransfer();
+        }
+    }
+
+    /**
+     * Handle read only query. Leader answers immediately if it holds a lease,
+     * otherwise query waits until a quorum acknowledges a broadcast round
+     * started after the query is received (ReadIndex). Followers ask the
+     * leader for the read index and answer once they apply up to it.
+     *
+     * @param node query owner
+     * @param req  query
+     */
+    public void handleQueryReq(Node node, QueryReq req)
+    {
+        if (role == Role.FOLLOWER && leader != null && leader.isConnected()) {
+            forwardedReads.add(new ReadRequest(node, req.getId(),
+                                               req.getData(), readIndexId));
+            readIndexRequired = true;
+            return;
+        }
+
+        if (role != Role.LEADER) {
+            node.sendQueryResp(req.getId(), false, EMPTY_BUF);
+            return;
+        }
+
+        ReadRequest read = new ReadRequest(node, req.getId(), req.getData(), round);
+        if (termStarted && hasLease()) {
+            executeRead(read);
+            return;
+        }
+
+        pendingReads.add(read);
+        readBarrier = true;
+    }
+
+    /**
+     * Handle read index request of a follower, served like a query but leader
+     * replies with its commit index instead of executing the query
+     *
+     * @param node follower
+     * @param req  ReadIndexReq message
+     */
+    public void handleReadIndexReq(Node node, ReadIndexReq req)
+    {
+        if (role != Role.LEADER) {
+            node.sendReadIndexResp(req.getId(), 0, false);
+            return;
+        }
+
+        ReadRequest read = new ReadRequest(node, req.getId(), null, round);
+        if (termStarted && hasLease()) {
+            executeRead(read);
+            return;
+        }
+
+        pendingReads.add(read);
+        readBarrier = true;
+    }
+
+    /**
+     * Handle read index response of the leader, queries covered by the
+     * request wait until local state applies up to read index
+     *
+     * @param node leader
+     * @param resp ReadIndexResp message
+     */
+    public void handleReadIndexResp(Node node, ReadIndexResp resp)
+    {
+        if (node != leader) {
+            return;
+        }
+
+        ReadRequest read;
+        while ((read = forwardedReads.peek()) != null) {
+            if (read.getRound() > resp.getId()) {
+                break;
+            }
+
+            forwardedReads.poll();
+            if (!resp.isSuccess()) {
+                read.getNode().sendQueryResp(read.getId(), false, EMPTY_BUF);
+                continue;
+            }
+
+            read.setIndex(resp.getIndex());
+            appliedReads.add(read);
+        }
+
+        checkAppliedReads();
+    }
+
+    /**
+     * Execute reads of followers whose read index is applied
+     */
+    private void checkAppliedReads()
+    {
+        ReadRequest read;
+        while ((read = appliedReads.peek()) != null) {
+            if (read.getIndex() > commit) {
+                break;
+            }
+
+            appliedReads.poll();
+            executeRead(read);
+        }
+    }
+
+    /**
+     * Fail reads waiting for read index, response might never come as the
+     * leader is gone
+     */
+    private void failForwardedReads()
+    {
+        ReadRequest read;
+        while ((read = forwardedReads.poll()) != null) {
+            read.getNode().sendQueryResp(read.getId(), false, EMPTY_BUF);
         }
 
-        Entry prev = store.get(req.getPrevLogIndex());
-        long prevTerm = prev != null ? prev.getTerm() : snapshotReader.getTerm();
-        if (prevTerm != req.getPrevLogTerm()) {
-            node.sendAppendResp(store.getLastIndex(), currentTerm, false);
+        readIndexRequired = false;
+    }
+
+    private void executeRead(ReadRequest read)
+    {
+        if (read.getData() == null) {
+            read.getNode().sendReadIndexResp(read.getId(), commit, true);
             return;
         }
 
-        List<Entry> entries = req.getEntries();
-        for (Entry entry : entries) {
-            registerEntry(entry);
+        ByteBuffer result;
+
+        try {
+            result = state.onQuery(read.getData());
+        }
+        catch (Exception e) {
+            logError(e, "Query failed for : ", read.getNode());
+            read.getNode().sendQueryResp(read.getId(), false, EMPTY_BUF);
+            return;
+        }
+
+        read.getNode().sendQueryResp(read.getId(), true, result);
+    }
+
+    /**
+     * Execute pending reads confirmed by a quorum
+     */
+    private void checkReads()
+    {
+        if (!termStarted || pendingReads.isEmpty()) {
+            return;
+        }
+
+        final long confirmed = quorumRound();
+
+        ReadRequest read;
+        while ((read = pendingReads.peek()) != null) {
+            if (read.getRound() >= confirmed) {
+                break;
+            }
+
+            pendingReads.poll();
+            executeRead(read);
         }
+    }
 
-        node.sendAppendResp(store.getLastIndex(), currentTerm, true);
-        incrementCommit(req.getLeaderCommit());
+    private void failReads()
+    {
+        ReadRequest read;
+        while ((read = pendingReads.poll()) != null) {
+            if (read.getData() == null) {
+                read.getNode().sendReadIndexResp(read.getId(), 0, false);
+            }
+            else {
+                read.getNode().sendQueryResp(read.getId(), false, EMPTY_BUF);
+            }
+        }
 
+        readBarrier = false;
     }
 
     /**
-     * Handle handleAppendResp callback, this message is sent by followers to
-     * the leader
+     * Get the highest broadcast round acknowledged by a quorum, local node
+     * counts as acknowledged for every round
      *
-     * @param node follower node
-     * @param resp resp message
+     * @return highest round acknowledged by quorum
      */
-    public void handleAppendResp(Node node, AppendResp resp)
+    private long quorumRound()
     {
-        node.setMatchIndex(resp.getIndex());
-        node.setNextIndex(resp.getIndex() + 1);
-        if (resp.isSuccess()) {
-            checkCommit(resp.getIndex());
+        final int needed = quorum() - 1;
+        if (needed == 0) {
+            return Long.MAX_VALUE;
         }
-        else {
-            if (resp.getTerm() > currentTerm) {
-                currentTerm = resp.getTerm();
-                writeMeta();
-                setRole(Role.FOLLOWER);
+
+        if (ackRounds.length < nodes.size()) {
+            ackRounds = new long[nodes.size()];
+        }
+
+        int count = 0;
+        for (Node node : nodes.values()) {
+            if (node != own && !node.isLearner()) {
+                ackRounds[count++] = node.getAckRound();
             }
         }
+
+        if (count < needed) {
+            return 0;
+        }
+
+        return Util.kthLargest(ackRounds, count, needed);
+    }
+
+    /**
+     * Check if leader holds a read lease. Followers will not vote for another
+     * candidate before the minimum election timeout elapses since they heard
+     * from the leader. So, the lease starts when the round acknowledged by a
+     * quorum is sent and it is shortened by the configured clock drift bound.
+     *
+     * @return true if leader can serve reads locally
+     */
+    private boolean hasLease()
+    {
+        //Transfer target gets votes while we might still hold the lease
+        if (!config.leaseRead || transferTarget != null) {
+            return false;
+        }
+
+        final long confirmed = quorumRound();
+        if (confirmed == Long.MAX_VALUE) {
+            return true;
+        }
+
+        if (confirmed <= leaderRound || confirmed <= leaseRound ||
+                                        confirmed <= round - ROUND_HISTORY) {
+            return false;
+        }
+
+        long start = roundTimestamps[(int) (confirmed % ROUND_HISTORY)];
+
+        return start + config.electionTimeoutMin - config.leaseDrift > Util.time();
     }
 
     public void handleInstallSnapshotReq(Node node, InstallSnapshotReq req)
@@ -738,6 +1955,7 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
         if (resp.isDone()) {
             node.setMatchIndex(snapshotReader.getIndex());
             node.setNextIndex(snapshotReader.getIndex() + 1);
+            commitCheckRequired = true;
         }
     }
 
@@ -752,6 +1970,7 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
     public void handleTermStart(Entry entry, Response response)
     {
         termStarted = true;
+        checkReads();
 
         logInfo("Term started : ", currentTerm, " Leader : ", nodeRecord,
                 " Cluster : ", clusterRecord);
@@ -762,7 +1981,10 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
                 peer.setConnected(true);
             }
             else {
-                peer.setPeer();
+                if (!peer.isLearner()) {
+                    peer.setPeer();
+                }
+
                 if (activeNodes.get(peer.getName()) != null) {
                     peer.setConnected(true);
                 }
@@ -806,6 +2028,19 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
 
     public void handleConfigUpdate(ClusterRecord record, Entry entry, Response response)
     {
+        if (configChange != null && configChange.getIndex() == entry.getIndex()) {
+            switch (configChange.getStage()) {
+                case ADD_LEARNER:
+                    configChange.setStage(ConfigChange.Stage.CATCH_UP);
+                    checkCatchUp();
+                    break;
+                case PROMOTE:
+                case REMOVE:
+                    completeConfigChange(true);
+                    break;
+            }
+        }
+
         if (termStarted) {
             logInfo("Config updated : ", record);
 
@@ -819,6 +2054,12 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
     public void handleEvents(Deque<Event> events)
     {
         System.out.println("events : "+ events.size());
+        runEvents(events);
+        flush();
+    }
+
+    private void runEvents(Deque<Event> events)
+    {
         try {
             Event event;
             while ((event = events.poll()) != null) {
@@ -828,12 +2069,39 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
         catch (Exception e) {
             logError(e);
         }
-
-        flush();
     }
 
     private void setRole(Role newRole)
     {
+        if (role == Role.LEADER && newRole != Role.LEADER) {
+            failReads();
+
+            //Once TimeoutNow is sent, result is known when the new leader is
+            if (transferTarget != null && !timeoutNowSent) {
+                completeTransfer(false);
+            }
+
+            if (configChange != null) {
+                completeConfigChange(false);
+            }
+
+            abandonRequests();
+            termStarted = false;
+        }
+
+        if (role != Role.LEADER && newRole == Role.LEADER) {
+            leaderRound = round;
+
+            //Target didn't take over, this node won the election instead
+            if (transferTarget != null) {
+                completeTransfer(false);
+            }
+        }
+
+        if (newRole != Role.FOLLOWER) {
+            failForwardedReads();
+        }
+
         switch (role) {
             case LEADER:
                 switch (newRole) {
@@ -842,7 +2110,7 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
                     case CANDIDATE:
                         break;
                     case FOLLOWER:
-                        //stopHeartBeatTimer();
+                        removeTimer(heartbeatTimer);
                         addTimer(electionTimer);
                         break;
                 }
@@ -851,7 +2119,7 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
                 switch (newRole) {
                     case LEADER:
                         removeTimer(electionTimer);
-                        //startHeartBeatTimer();
+                        startHeartbeatTimer();
                         break;
                     case CANDIDATE:
                         break;
@@ -866,7 +2134,7 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
                 switch (newRole) {
                     case LEADER:
                         removeTimer(electionTimer);
-                        //startHeartBeatTimer();
+                        startHeartbeatTimer();
                         break;
                     case CANDIDATE:
                         //restartElectionTimer();
@@ -886,31 +2154,148 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
         logInfo("Became : ", role);
     }
 
-    public Entry createInternalEntry(Command cmd, Request request)
+    /**
+     * Drop requests of the leadership, entries might be overwritten by the
+     * new leader. Clients are disconnected, so they reconnect to the new
+     * leader and retry, sessions filter duplicates. Read only clients stay
+     * connected, they may query any peer.
+     */
+    private void abandonRequests()
     {
-        Entry entry = new Entry(State.INTERNAL_ID, State.LEADER_ID,
-                                State.LEADER_SEQ, State.LEADER_ACK,
-                                currentTerm, cmd.getRaw());
-        store.add(entry);
-        requests.put(entry.getIndex(), request);
+        requests.clear();
+        proposals.clear();
+        proposalRequests.clear();
+        proposalBytes    = 0;
+        uncommittedBytes = 0;
+        busy             = false;
+        metrics.setBusy(false);
+        metrics.setLoad(0, 0, 0);
 
-        return entry;
+        for (Node client : clients.values()) {
+            client.disconnect();
+        }
+
+        clients.clear();
     }
 
-    private void registerEntry(Entry entry)
+    /**
+     * Leader steps down if it doesn't hear from a quorum in minimum election
+     * timeout, peers might have elected a new leader already
+     *
+     * @return true if quorum is contacted recently
+     */
+    private boolean hasQuorumContact()
     {
-        Entry prev = store.get(entry.getIndex());
-        if (prev != null) {
-            if (prev.getTerm() != entry.getTerm()) {
-                store.removeFrom(entry.getIndex());
+        final long limit = timestamp() - config.electionTimeoutMin;
+
+        int count = 1;
+        for (Node node : activeNodes.values()) {
+            if (node.getInTimestamp() > limit && !node.isLearner()) {
+                count++;
+            }
+        }
+
+        return count >= quorum();
+    }
+
+    /**
+     * Count voting peers, learners are excluded
+     */
+    private void updateVoters()
+    {
+        int count = 0;
+        for (Node node : nodes.values()) {
+            if (!node.isLearner()) {
+                count++;
             }
+        }
+
+        voters = count;
+    }
+
+    /**
+     * Get quorum size, learners are not part of the quorum
+     * @return vote count required for a majority of voting peers
+     */
+    private int quorum()
+    {
+        return voters / 2 + 1;
+    }
+
+    /**
+     * Connection to leader is lost, start election as soon as peers are
+     * allowed to vote instead of waiting for missed heartbeats
+     */
+    private void handleLeaderLost()
+    {
+        if (role != Role.FOLLOWER) {
+            return;
+        }
+
+        leaderLost = true;
+
+        final long timeout = Math.max(timestamp(), leader.getInTimestamp() +
+                                                   config.electionTimeoutMin);
+        resetElectionTimer(timeout + random.nextInt((int) config.heartbeatInterval + 1));
+    }
+
+    private void startHeartbeatTimer()
+    {
+        //Host thread runs a single heartbeat timer for its groups
+        if (host != null) {
+            return;
+        }
+
+        heartbeatTimer.updateTimeout(timestamp() + heartbeatTimer.interval);
+        addTimer(heartbeatTimer);
+    }
+
+    /**
+     * Heartbeat timer callback, followers which didn't get an AppendReq
+     * recently get an empty one. Timer runs at twice the heartbeat rate, so
+     * a follower waits at most one heartbeat interval.
+     */
+    public void onHeartbeatTimeout()
+    {
+        if (role != Role.LEADER) {
+            return;
+        }
+
+        if (config.checkQuorum && !hasQuorumContact()) {
+            logWarn("No contact with quorum, stepping down");
+            setRole(Role.FOLLOWER);
+            leader = null;
             return;
         }
 
+        //Learner couldn't catch up, it stays as learner
+        if (configChange != null &&
+            configChange.getStage() == ConfigChange.Stage.CATCH_UP &&
+            configChange.getDeadline() <= timestamp()) {
+            logWarn("Learner couldn't catch up in time : ", configChange.getRecord());
+            completeConfigChange(false);
+        }
+
+        heartbeatDue = true;
+        flush();
+    }
+
+    public Entry createInternalEntry(Command cmd, Request request)
+    {
+        //Keep arrival order of the requests
+        appendProposals();
+
+        Entry entry = new Entry(State.INTERNAL_ID, State.LEADER_ID,
+                                State.LEADER_SEQ, State.LEADER_ACK,
+                                currentTerm, cmd.getRaw());
         store.add(entry);
+        requests.put(entry.getIndex(), request);
+        uncommittedBytes += entry.encodedLen();
+
+        return entry;
     }
 
-    public void flush()
+    private void handleReadyNodes()
     {
         for (Node node : readyNodes) {
             try {
@@ -922,14 +2307,51 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
         }
 
         readyNodes.clear();
+    }
 
+    public void flush()
+    {
+        handleReadyNodes();
+        appendProposals();
         store.flush();
 
+        if (readIndexRequired && role == Role.FOLLOWER) {
+            readIndexRequired = false;
+            leader.sendReadIndexReq(readIndexId++);
+        }
+
         if (role == Role.LEADER) {
+            //Local store is flushed, local node acknowledges its entries
+            if (own.getNextIndex() <= store.getLastIndex()) {
+                own.setMatchIndex(store.getLastIndex());
+                own.setNextIndex(store.getLastIndex() + 1);
+                commitCheckRequired = true;
+            }
+
+            //Acknowledgements of this iteration are evaluated at once
+            if (commitCheckRequired) {
+                commitCheckRequired = false;
+                checkCommit();
+                checkCatchUp();
+            }
+
+            final boolean heartbeat = readBarrier;
+            final long idleLimit    = timestamp() - heartbeatTimer.interval;
+            final long nextRound    = round + 1;
+            boolean sent            = false;
+
+            //Shared frames carry the worst round trip time of the followers
+            long maxRtt = 0;
+            for (Node node : activeNodes.values()) {
+                maxRtt = Math.max(maxRtt, node.getRtt());
+            }
+
+            readBarrier = false;
 
             for (Node node : activeNodes.values()) {
                 long nextIndex = node.getNextIndex();
-                if (nextIndex > store.getLastIndex()) {
+                boolean idle   = heartbeatDue && node.getOutTimestamp() <= idleLimit;
+                if (nextIndex > store.getLastIndex() && !heartbeat && !idle) {
                     continue;
                 }
 
@@ -950,27 +2372,65 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
                     Entry prev = store.get(nextIndex - 1);
                     long prevTerm = prev != null ? prev.getTerm() :
                                                    snapshotReader.getTerm();
-                    AppendReq req = new AppendReq(currentTerm, nextIndex - 1,
-                                                  prevTerm, commit);
+                    sent = true;
+
+                    //Heartbeats of the groups on a host are batched
+                    if (host != null && heartbeatDue && nextIndex > store.getLastIndex()) {
+                        node.sendHeartbeat(new AppendReq(currentTerm, nextIndex - 1,
+                                                         prevTerm, commit, nextRound,
+                                                         node.getRtt()));
+                        continue;
+                    }
 
-                    req.setEntriesBuffer(store.rawEntriesFrom(nextIndex));
+                    AppendFrame frame = frames.get(nextIndex);
+                    if (frame == null) {
+                        AppendReq req = new AppendReq(currentTerm, nextIndex - 1,
+                                                      prevTerm, commit, nextRound,
+                                                      maxRtt);
+
+                        //Lagging followers get entries from the file directly
+                        FileRegion region = store.regionFrom(nextIndex, MAX_TRANSFER_SIZE);
+                        if (region != null) {
+                            frame = new AppendFrame(req, region);
+                        }
+                        else {
+                            frame = new AppendFrame(req, store.rawEntriesFrom(nextIndex),
+                                                    store.getLastIndex());
+                        }
+
+                        frames.put(nextIndex, frame);
+                        if (frame.hasEntries()) {
+                            sentFrames.add(frame);
+                        }
+                    }
 
-                    node.setNextIndex(store.getLastIndex() + 1);
-                    node.sendAppendReq(req);
+                    node.setNextIndex(frame.getLastIndex() + 1);
+                    node.sendAppendReq(frame.newReq());
                 }
             }
 
-            if (own.getNextIndex() <= store.getLastIndex()) {
-                own.setMatchIndex(store.getLastIndex());
-                own.setNextIndex(store.getLastIndex() + 1);
-                handleAppendResp(own, new AppendResp(store.getLastIndex(),
-                                                     currentTerm, true));
+            frames.clear();
+
+            if (sent) {
+                round = nextRound;
+                roundTimestamps[(int) (round % ROUND_HISTORY)] = timestamp();
             }
+
+            heartbeatDue = false;
+            checkAdmission();
         }
 
+        flushResponses();
         checkCompaction();
+        flushOutgoings();
+        releaseReceived();
     }
 
+    /**
+     * Apply entries up to index in one batch
+     *
+     * @param index new commit index
+     */
     private void incrementCommit(long index)
     {
         if (commit >= index) {
@@ -981,63 +2441,171 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
             Entry entry = store.get(i);
             Response response = state.apply(entry);
             handleApplied(entry, response);
+
+            //Only entries appended by this leader are counted
+            if (role == Role.LEADER && entry.getTerm() == currentTerm) {
+                uncommittedBytes -= entry.encodedLen();
+            }
         }
 
         commit = index;
+        checkAppliedReads();
+
+        if (stepDownRequired) {
+            stepDownRequired = false;
+            setRole(Role.FOLLOWER);
+        }
     }
 
     /**
-     * Check if index is eligible to be marked committed
-     *
-     * @param index commit index
+     * Commit the highest index replicated on a quorum. Entries of previous
+     * terms are not committed by counting replicas, they are committed
+     * together with an entry of the current term.
      */
-    private void checkCommit(long index)
+    private void checkCommit()
     {
+        if (matchIndexes.length < nodes.size()) {
+            matchIndexes = new long[nodes.size()];
+        }
+
         int count = 0;
-        for (Node peer : activeNodes.values()) {
-            if (peer.getMatchIndex() >= index) {
-                count++;
+        long all  = own.getMatchIndex();
+        for (Node node : nodes.values()) {
+            if (!node.isLearner()) {
+                matchIndexes[count++] = node.getMatchIndex();
             }
-        }
 
-        if (count == activeNodes.size()) {
-            matchIndex = index;
+            if (activeNodes.get(node.getName()) == node) {
+                all = Math.min(all, node.getMatchIndex());
+            }
         }
 
-        if (count + 1 >= (nodes.size() / 2) + 1) {
-            if (commit >= index) {
-                return;
-            }
+        matchIndex = all;
 
-            for (long i = commit + 1; i <= index; i++) {
-                Entry entry = store.get(i);
-                Response response = state.apply(entry);
-                handleApplied(entry, response);
-            }
+        final long index = Util.kthLargest(matchIndexes, count, quorum());
+        if (index <= commit) {
+            return;
+        }
 
-            commit = index;
+        Entry entry = store.get(index);
+        if (entry == null || entry.getTerm() != currentTerm) {
+            return;
         }
+
+        incrementCommit(index);
     }
 
     public void checkCompaction()
     {
         long index = store.getFirstPageEnd();
-        if (commit > index) {
+        if (commit > index && !isFrameInFlight(index)) {
             snapshotWriter.takeSnapshot();
             store.deleteFirst();
         }
     }
 
 
+    /**
+     * Check if an unwritten AppendReq refers to the entries up to index,
+     * their store pages must stay mapped until they are written
+     *
+     * @param index last index of the page
+     * @return      true if page is in use
+     */
+    private boolean isFrameInFlight(long index)
+    {
+        while (!sentFrames.isEmpty() && sentFrames.peekFirst().isReleased()) {
+            sentFrames.poll();
+        }
+
+        for (AppendFrame frame : sentFrames) {
+            if (!frame.isReleased() && frame.getFirstIndex() <= index) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Election timeout, derived from round trip times to peers : missed
+     * heartbeat count times heartbeat interval plus a few times the worst
+     * 99th percentile round trip time, within configured bounds and
+     * randomized to prevent split votes
+     *
+     * @return election timeout in milliseconds
+     */
+    private long nextElectionTimeout()
+    {
+        long rtt = 0;
+        for (Node node : nodes.values()) {
+            rtt = Math.max(rtt, node.getRtt());
+        }
+
+        long timeout = config.missedHeartbeats * config.heartbeatInterval + 4 * rtt;
+        timeout = Math.min(timeout, config.electionTimeoutMax);
+        timeout = Math.max(timeout, config.electionTimeoutMin);
+
+        return timeout + random.nextInt((int) (timeout / 2) + 1);
+    }
+
+    private void resetElectionTimer(long timeout)
+    {
+        removeTimer(electionTimer);
+        electionTimer.interval = electionTimeout;
+        electionTimer.updateTimeout(timeout);
+        addTimer(electionTimer);
+    }
+
+    /**
+     * Peers don't vote for others while leader is active, leader lease
+     * relies on this
+     *
+     * @return true if leader is heard in minimum election timeout
+     */
+    private boolean hasActiveLeader()
+    {
+        return leader != null &&
+               leader.getInTimestamp() + config.electionTimeoutMin > timestamp();
+    }
+
     public void onElectionTimeout()
     {
-        if (leader != null) {
-            if (leader.getInTimestamp() + ELECTION_TIMEOUT > timestamp()) {
+        handleElectionTimeout();
+        flushOutgoings();
+    }
+
+    private void handleElectionTimeout()
+    {
+        if (leader != null && role == Role.FOLLOWER && !leaderLost) {
+            if (leader.getInTimestamp() != leaderContact) {
+                leaderContact   = leader.getInTimestamp();
+                electionTimeout = nextElectionTimeout();
+            }
+
+            final long deadline = leaderContact + electionTimeout;
+            if (deadline > timestamp()) {
+                resetElectionTimer(deadline);
                 return;
             }
         }
 
-        if (activeNodes.size() + 1 >= (nodes.size() / 2) + 1) {
+        electionTimeout = nextElectionTimeout();
+        resetElectionTimer(timestamp() + electionTimeout);
+
+        //Learners never start an election
+        if (nodeRecord.isLearner()) {
+            return;
+        }
+
+        int active = 1;
+        for (Node node : activeNodes.values()) {
+            if (!node.isLearner()) {
+                active++;
+            }
+        }
+
+        if (active >= quorum()) {
             if (preVoteTerm != -1 && role == Role.CANDIDATE) {
                 logWarn("Couldnt get enough pre-votes from cluster " +
                         "in election timeout, trying again...");
@@ -1051,8 +2619,10 @@ public class Cluster extends Worker implements RaftCluster, IOOwner
                                                    store.getLastIndex(), true));
 
             for (Node node : activeNodes.values()) {
-                node.sendPreVoteReq(preVoteTerm,
-                                    store.getLastIndex(), store.getLastTerm());
+                if (!node.isLearner()) {
+                    node.sendPreVoteReq(preVoteTerm,
+                                        store.getLastIndex(), store.getLastTerm());
+                }
             }
         }
     }
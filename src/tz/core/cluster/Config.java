@@ -17,6 +17,24 @@ public class Config
     public int clusterWorkerCount;
     public int ioWorkerCount;
     public int snapshotWorkerCount;
+    public boolean leaseRead;
+    public long leaseDrift;
+    public long heartbeatInterval;
+    public long electionTimeoutMin;
+    public long electionTimeoutMax;
+    public int missedHeartbeats;
+    public boolean checkQuorum;
+    public boolean sharedLog;
+    public long catchUpLag;
+    public long catchUpTimeout;
+    public int proposalBatchSize;
+    public long maxUncommittedBytes;
+    public int maxPendingRequests;
+    public int maxQueuedMsgs;
+    public long busyRetryInterval;
+    public boolean timerWheel;
+    public long timerTick;
+    public long spinTime;
 
     public TlsConfig tlsConfig;
 
@@ -33,6 +51,24 @@ public class Config
         clusterWorkerCount  = 1;
         ioWorkerCount       = 1;
         snapshotWorkerCount = 1;
+        leaseRead           = false;
+        leaseDrift          = 100;
+        heartbeatInterval   = 100;
+        electionTimeoutMin  = 500;
+        electionTimeoutMax  = 5000;
+        missedHeartbeats    = 3;
+        checkQuorum         = true;
+        sharedLog           = false;
+        catchUpLag          = 1000;
+        catchUpTimeout      = 10 * 60 * 1000;
+        proposalBatchSize   = 64 * 1024;
+        maxUncommittedBytes = 64 * 1024 * 1024;
+        maxPendingRequests  = 100000;
+        maxQueuedMsgs       = 10000;
+        busyRetryInterval   = 100;
+        timerWheel          = false;
+        timerTick           = 1;
+        spinTime            = 0;
     }
 
     /**
@@ -80,6 +116,187 @@ public class Config
         this.recvBufSize = recvBufSize;
     }
 
+    /**
+     * Enable lease based reads, leader serves queries without a round trip
+     * while it holds a lease from the quorum
+     * @param leaseRead true to enable lease reads
+     */
+    public void setLeaseRead(boolean leaseRead)
+    {
+        this.leaseRead = leaseRead;
+    }
+
+    /**
+     * Set clock drift bound in milliseconds, lease is shortened by this amount
+     * @param leaseDrift clock drift bound
+     */
+    public void setLeaseDrift(long leaseDrift)
+    {
+        this.leaseDrift = leaseDrift;
+    }
+
+    /**
+     * Set heartbeat interval in milliseconds, leader sends heartbeat to
+     * followers which didn't get an AppendReq in this interval
+     * @param heartbeatInterval heartbeat interval
+     */
+    public void setHeartbeatInterval(long heartbeatInterval)
+    {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    /**
+     * Set lower bound of election timeout in milliseconds. Peers don't vote
+     * for others in this period after hearing from the leader, so it is the
+     * upper bound of lease duration as well
+     * @param electionTimeoutMin minimum election timeout
+     */
+    public void setElectionTimeoutMin(long electionTimeoutMin)
+    {
+        this.electionTimeoutMin = electionTimeoutMin;
+    }
+
+    /**
+     * Set upper bound of election timeout in milliseconds, election timeout
+     * is derived from round trip times to peers within the bounds
+     * @param electionTimeoutMax maximum election timeout
+     */
+    public void setElectionTimeoutMax(long electionTimeoutMax)
+    {
+        this.electionTimeoutMax = electionTimeoutMax;
+    }
+
+    /**
+     * Set missed heartbeat count, followers suspect the leader after missing
+     * this many heartbeats (plus round trip time margin)
+     * @param missedHeartbeats missed heartbeat count
+     */
+    public void setMissedHeartbeats(int missedHeartbeats)
+    {
+        this.missedHeartbeats = missedHeartbeats;
+    }
+
+    /**
+     * Enable check quorum, leader steps down if it doesn't hear from a
+     * quorum in minimum election timeout
+     * @param checkQuorum true to enable check quorum
+     */
+    public void setCheckQuorum(boolean checkQuorum)
+    {
+        this.checkQuorum = checkQuorum;
+    }
+
+    /**
+     * Use a shared log for the raft groups of a RaftHost, entries of all
+     * groups are persisted with a single fsync. Store size is the size of a
+     * segment of the shared log
+     * @param sharedLog true to enable shared log
+     */
+    public void setSharedLog(boolean sharedLog)
+    {
+        this.sharedLog = sharedLog;
+    }
+
+    /**
+     * Set catch up lag, learners are promoted to voters when they are behind
+     * the leader's log by this many entries at most
+     * @param catchUpLag entry count
+     */
+    public void setCatchUpLag(long catchUpLag)
+    {
+        this.catchUpLag = catchUpLag;
+    }
+
+    /**
+     * Set catch up timeout in milliseconds, adding a peer fails if it cannot
+     * catch up in this period, it stays as a learner
+     * @param catchUpTimeout catch up timeout
+     */
+    public void setCatchUpTimeout(long catchUpTimeout)
+    {
+        this.catchUpTimeout = catchUpTimeout;
+    }
+
+    /**
+     * Set proposal batch size in bytes, leader appends client requests of an
+     * event loop iteration as one batch, batch is appended earlier if it
+     * reaches this size
+     * @param proposalBatchSize batch size
+     */
+    public void setProposalBatchSize(int proposalBatchSize)
+    {
+        this.proposalBatchSize = proposalBatchSize;
+    }
+
+    /**
+     * Set max uncommitted bytes, leader rejects client requests with a busy
+     * response while its uncommitted entries exceed this size
+     * @param maxUncommittedBytes max uncommitted bytes
+     */
+    public void setMaxUncommittedBytes(long maxUncommittedBytes)
+    {
+        this.maxUncommittedBytes = maxUncommittedBytes;
+    }
+
+    /**
+     * Set max count of client requests waiting for commit on the leader
+     * @param maxPendingRequests max pending request count
+     */
+    public void setMaxPendingRequests(int maxPendingRequests)
+    {
+        this.maxPendingRequests = maxPendingRequests;
+    }
+
+    /**
+     * Set max outgoing queue depth of a connection, leader rejects client
+     * requests while a peer or the client itself is not reading its messages
+     * @param maxQueuedMsgs max queued message count
+     */
+    public void setMaxQueuedMsgs(int maxQueuedMsgs)
+    {
+        this.maxQueuedMsgs = maxQueuedMsgs;
+    }
+
+    /**
+     * Set retry interval in milliseconds sent to clients with busy responses
+     * @param busyRetryInterval retry interval
+     */
+    public void setBusyRetryInterval(long busyRetryInterval)
+    {
+        this.busyRetryInterval = busyRetryInterval;
+    }
+
+    /**
+     * Use hashed timing wheel instead of priority queue for the timers of
+     * cluster threads, add and remove are O(1) with many timers
+     * @param timerWheel true to use timing wheel
+     */
+    public void setTimerWheel(boolean timerWheel)
+    {
+        this.timerWheel = timerWheel;
+    }
+
+    /**
+     * Set tick of the timing wheel in milliseconds, timers fire on ticks
+     * @param timerTick timer tick
+     */
+    public void setTimerTick(long timerTick)
+    {
+        this.timerTick = timerTick;
+    }
+
+    /**
+     * Set busy spin time in microseconds of cluster and IO threads, threads
+     * poll for events this long before they block. Lowers the latency of
+     * each handoff between threads, but every thread keeps a core busy, 0
+     * disables spinning
+     * @param spinTime spin time
+     */
+    public void setSpinTime(long spinTime)
+    {
+        this.spinTime = spinTime;
+    }
+
     /**
      * Set tls config
      * @param tlsConfig tls config
@@ -107,6 +324,24 @@ public class Config
                .append("\t cluster worker count             = ").append(clusterWorkerCount)                 .append(nl)
                .append("\t io worker count                  = ").append(ioWorkerCount)                      .append(nl)
                .append("\t snapshot worker count            = ").append(snapshotWorkerCount)                .append(nl)
+               .append("\t lease read                       = ").append(leaseRead)                          .append(nl)
+               .append("\t lease drift                      = ").append(leaseDrift)                         .append(nl)
+               .append("\t heartbeat interval               = ").append(heartbeatInterval)                  .append(nl)
+               .append("\t election timeout min             = ").append(electionTimeoutMin)                 .append(nl)
+               .append("\t election timeout max             = ").append(electionTimeoutMax)                 .append(nl)
+               .append("\t missed heartbeats                = ").append(missedHeartbeats)                   .append(nl)
+               .append("\t check quorum                     = ").append(checkQuorum)                        .append(nl)
+               .append("\t shared log                       = ").append(sharedLog)                          .append(nl)
+               .append("\t catch up lag                     = ").append(catchUpLag)                         .append(nl)
+               .append("\t catch up timeout                 = ").append(catchUpTimeout)                     .append(nl)
+               .append("\t proposal batch size              = ").append(proposalBatchSize)                  .append(nl)
+               .append("\t max uncommitted bytes            = ").append(maxUncommittedBytes)                .append(nl)
+               .append("\t max pending requests             = ").append(maxPendingRequests)                 .append(nl)
+               .append("\t max queued msgs                  = ").append(maxQueuedMsgs)                      .append(nl)
+               .append("\t busy retry interval              = ").append(busyRetryInterval)                  .append(nl)
+               .append("\t timer wheel                      = ").append(timerWheel)                         .append(nl)
+               .append("\t timer tick                       = ").append(timerTick)                          .append(nl)
+               .append("\t spin time                        = ").append(spinTime)                           .append(nl)
                .append("\t tls local keystore               = ").append(tlsConfig.serverKeyStore)           .append(nl)
                .append("\t tls local keystore password      = ").append(tlsConfig.serverKeyStorePassword)   .append(nl)
                .append("\t tls local keystore key password  = ").append(tlsConfig.serverKeyStoreKeyPassword).append(nl)
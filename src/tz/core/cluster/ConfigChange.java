@@ -0,0 +1,91 @@
+package tz.core.cluster;
+
+import tz.base.record.NodeRecord;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Membership change in progress on the leader
+ *
+ * New peers are added as learners first and promoted to voters once they
+ * catch up with the leader, so quorum never waits for a peer streaming the
+ * snapshot and the log. Configuration changes one peer at a time, next change
+ * is accepted after the previous one is committed.
+ */
+public class ConfigChange
+{
+    enum Stage
+    {
+        ADD_LEARNER,
+        CATCH_UP,
+        PROMOTE,
+        REMOVE
+    }
+
+    private final NodeRecord record;
+    private final CompletableFuture<Boolean> future;
+    private final long deadline;
+    private Stage stage;
+    private long index;
+
+    /**
+     * Create new ConfigChange
+     *
+     * @param record   record of the peer
+     * @param stage    first stage
+     * @param deadline catch up deadline
+     * @param future   completed when change is committed or aborted
+     */
+    public ConfigChange(NodeRecord record, Stage stage, long deadline,
+                        CompletableFuture<Boolean> future)
+    {
+        this.record   = record;
+        this.stage    = stage;
+        this.deadline = deadline;
+        this.future   = future;
+    }
+
+    public NodeRecord getRecord()
+    {
+        return record;
+    }
+
+    public String getName()
+    {
+        return record.getName();
+    }
+
+    public Stage getStage()
+    {
+        return stage;
+    }
+
+    public void setStage(Stage stage)
+    {
+        this.stage = stage;
+    }
+
+    public long getDeadline()
+    {
+        return deadline;
+    }
+
+    /**
+     * Get index of the config entry waiting for commit
+     * @return index of the entry
+     */
+    public long getIndex()
+    {
+        return index;
+    }
+
+    public void setIndex(long index)
+    {
+        this.index = index;
+    }
+
+    public CompletableFuture<Boolean> getFuture()
+    {
+        return future;
+    }
+}
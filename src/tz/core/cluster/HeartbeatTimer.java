@@ -0,0 +1,36 @@
+package tz.core.cluster;
+
+import tz.base.poll.TimerEvent;
+
+/**
+ * Heartbeat timer
+ */
+public class HeartbeatTimer extends TimerEvent
+{
+    private final Cluster cluster;
+
+    /**
+     * Create new Heartbeat timer
+     *
+     * @param cluster   cluster
+     * @param periodic  is periodic
+     * @param interval  interval
+     * @param timeout   first timeout
+     */
+    public HeartbeatTimer(Cluster cluster,
+                         boolean periodic, long interval, long timeout)
+    {
+        super(periodic, interval, timeout);
+
+        this.cluster = cluster;
+    }
+
+    /**
+     * Timeout callback
+     */
+    @Override
+    public void onTimeout()
+    {
+        cluster.onHeartbeatTimeout();
+    }
+}
@@ -3,6 +3,7 @@ package tz.core.cluster;
 import tz.base.common.Buffer;
 import tz.base.exception.RaftException;
 import tz.core.msg.Entry;
+import tz.core.msg.FileRegion;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -184,6 +185,66 @@ public class MappedStore
      * @param entry entry
      */
     public void add(Entry entry)
+    {
+        final int pos = buf.position();
+
+        put(entry);
+        updateMeta(pos, buf.position() - pos);
+
+        needFlush = true;
+    }
+
+    /**
+     * Append entries to log file, hash is updated once for the batch
+     * @param batch entries
+     */
+    public void add(List<Entry> batch)
+    {
+        final int pos = buf.position();
+
+        for (Entry entry : batch) {
+            put(entry);
+        }
+
+        updateMeta(pos, buf.position() - pos);
+
+        needFlush = true;
+    }
+
+    /**
+     * Append entries received from the leader, raw bytes of the entries are
+     * copied at once and entries are pointed to the copy
+     *
+     * @param raw   buffer holding the entries, e.g received message
+     * @param batch entries, contiguous slices of raw
+     */
+    public void add(Buffer raw, List<Entry> batch)
+    {
+        final Entry last = batch.get(batch.size() - 1);
+        final int pos    = buf.position();
+        final int begin  = batch.get(0).getOffset();
+        final int len    = last.getOffset() + last.encodedLen() - begin;
+
+        buf.put(raw.slice(begin, len));
+
+        for (Entry entry : batch) {
+            final int offset    = pos + entry.getOffset() - begin;
+            final int headerLen = entry.headerLen();
+            final int dataLen   = entry.dataLen();
+
+            entry.setHeader(buf.slice(offset, headerLen));
+            entry.setData(buf.slice(offset + headerLen, dataLen));
+
+            entries.add(entry);
+            entry.setIndex(prevIndex + entries.size());
+        }
+
+        updateMeta(pos, len);
+
+        needFlush = true;
+    }
+
+    private void put(Entry entry)
     {
         final int pos       = buf.position();
         final int headerLen = entry.headerLen();
@@ -193,12 +254,8 @@ public class MappedStore
         entry.setHeader(buf.slice(pos, headerLen));
         entry.setData(buf.slice(pos + headerLen, dataLen));
 
-        updateMeta(pos, headerLen + dataLen);
-
         entries.add(entry);
         entry.setIndex(prevIndex + entries.size());
-
-        needFlush = true;
     }
 
     /**
@@ -310,6 +367,41 @@ public class MappedStore
     }
 
 
+    /**
+     * Get file region of the entries starting from index
+     *
+     * @param index  start index
+     * @param maxLen max byte count, region holds one entry at least
+     * @return       region or null if index is not in this store
+     */
+    public FileRegion regionFrom(long index, int maxLen)
+    {
+        if (index < prevIndex + 1) {
+            index = prevIndex + 1;
+        }
+
+        int pos = (int) (index - prevIndex - 1);
+        if (pos < 0 || pos >= entries.size()) {
+            return null;
+        }
+
+        final int begin = entries.get(pos).getOffset();
+
+        int last = pos;
+        int end  = begin + entries.get(pos).encodedLen();
+        while (last + 1 < entries.size()) {
+            Entry next = entries.get(last + 1);
+            if (next.getOffset() + next.encodedLen() - begin > maxLen) {
+                break;
+            }
+
+            end = next.getOffset() + next.encodedLen();
+            last++;
+        }
+
+        return new FileRegion(channel, begin, end - begin, prevIndex + last + 1);
+    }
+
     /**
      * Flush mapped buffer to disk
      */
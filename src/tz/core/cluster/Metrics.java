@@ -0,0 +1,112 @@
+package tz.core.cluster;
+
+/**
+ * Metrics of a cluster
+ *
+ * Cluster thread updates the values, any thread can read them. Values are
+ * updated once per event loop iteration at most, so they are approximate.
+ */
+public class Metrics
+{
+    private volatile boolean busy;
+    private volatile long busyPeriods;
+    private volatile long rejectedRequests;
+    private volatile long uncommittedBytes;
+    private volatile long pendingRequests;
+    private volatile long maxQueuedMsgs;
+
+    /**
+     * Leader is rejecting client requests
+     * @return true if leader is overloaded
+     */
+    public boolean isBusy()
+    {
+        return busy;
+    }
+
+    /**
+     * Get count of overload periods
+     * @return count of times leader started rejecting requests
+     */
+    public long getBusyPeriods()
+    {
+        return busyPeriods;
+    }
+
+    /**
+     * Get count of client requests rejected with busy response
+     * @return rejected request count
+     */
+    public long getRejectedRequests()
+    {
+        return rejectedRequests;
+    }
+
+    /**
+     * Get bytes appended by the leader but not committed yet
+     * @return uncommitted bytes
+     */
+    public long getUncommittedBytes()
+    {
+        return uncommittedBytes;
+    }
+
+    /**
+     * Get count of client requests waiting for commit
+     * @return pending request count
+     */
+    public long getPendingRequests()
+    {
+        return pendingRequests;
+    }
+
+    /**
+     * Get deepest outgoing message queue of peer connections
+     * @return queued message count
+     */
+    public long getMaxQueuedMsgs()
+    {
+        return maxQueuedMsgs;
+    }
+
+    void setBusy(boolean busy)
+    {
+        if (busy && !this.busy) {
+            busyPeriods++;
+        }
+
+        this.busy = busy;
+    }
+
+    void addRejected(long count)
+    {
+        rejectedRequests += count;
+    }
+
+    void setLoad(long uncommittedBytes, long pendingRequests, long maxQueuedMsgs)
+    {
+        this.uncommittedBytes = uncommittedBytes;
+        this.pendingRequests  = pendingRequests;
+        this.maxQueuedMsgs    = maxQueuedMsgs;
+    }
+
+    /**
+     * toString
+     * @return string representation of the metrics
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(256);
+
+        builder.append(" [[Metrics][")
+               .append("Busy : "             ).append(busy)            .append(", ")
+               .append("Busy periods : "     ).append(busyPeriods)     .append(", ")
+               .append("Rejected requests : ").append(rejectedRequests).append(", ")
+               .append("Uncommitted bytes : ").append(uncommittedBytes).append(", ")
+               .append("Pending requests : " ).append(pendingRequests) .append(", ")
+               .append("Max queued msgs : "  ).append(maxQueuedMsgs)   .append("]]");
+
+        return builder.toString();
+    }
+}
@@ -11,6 +11,7 @@ import tz.core.worker.IOWorker.IOWorker;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 
@@ -36,14 +37,19 @@ public class Node implements MsgHandler
         DISCONNECTED,
     }
 
+    private static final int RTT_SAMPLES = 64;
+
     private Cluster cluster;
-    private IOWorker worker;
     private Connection conn;
 
     private long nextIndex;
     private long matchIndex;
     private long sequence;
     private long acknowledge;
+    private long ackRound;
+
+    //First client request rejected by busy leader, -1 if none
+    private long rejectedSequence;
 
     private NodeRecord local;
     private NodeRecord remote;
@@ -55,8 +61,17 @@ public class Node implements MsgHandler
     private Deque<Msg> incomings;
     private Deque<Msg> outgoings;
 
+    //Client responses of this iteration, sent as one message on flush
+    private ClientRespBatch responses;
+
     private long inTimestamp;
     private long outTimestamp;
+
+    //Round trip time samples, measured by leader
+    private long[] rttSamples;
+    private long[] rttSorted;
+    private int rttCount;
+    private long rtt;
     private State connectionState;
 
     private int transport;
@@ -67,7 +82,6 @@ public class Node implements MsgHandler
                 NodeRecord local, NodeRecord remote, Type type)
     {
         this.cluster    = cluster;
-        this.worker     = cluster.getIoWorker();
         this.conn       = conn;
         this.local      = local;
         this.remote     = remote;
@@ -84,6 +98,7 @@ public class Node implements MsgHandler
         outTimestamp    = cluster.timestamp();
 
         reconnectTimer  = new ReconnectTimer(cluster, this, false, 5000, 0);
+        rejectedSequence = -1;
 
         if (conn != null) {
             connectionState = State.CONNECTED;
@@ -114,22 +129,23 @@ public class Node implements MsgHandler
 
     public boolean sendInstallSnapshotReq(long term)
     {
-        worker.addOutgoingMsg(conn, new InstallSnapshotReq(term,
-                                                           snapshotSender.getIndex(),
-                                                           snapshotSender.getTerm(),
-                                                           snapshotSender.nextSlice(),
-                                                           snapshotSender.isComplete()));
+        send(new InstallSnapshotReq(term,
+                                    snapshotSender.getIndex(),
+                                    snapshotSender.getTerm(),
+                                    snapshotSender.nextSlice(),
+                                    snapshotSender.isComplete()));
         return false;
     }
 
     public void sendInstallSnapshotResp(long term, boolean success, boolean done)
     {
-        worker.addOutgoingMsg(conn, new InstallSnapshotResp(term, success, done));
+        send(new InstallSnapshotResp(term, success, done));
     }
 
     public void reconnect()
     {
         conn = null;
+        connectionState = State.DISCONNECTED;
         if (remote.getName().compareTo(local.getName()) > 0) {
             reconnectTimer.timeout = cluster.timestamp() + reconnectTimer.interval;
             cluster.removeTimer(reconnectTimer);
@@ -147,11 +163,49 @@ public class Node implements MsgHandler
         return type == Type.CLIENT;
     }
 
+    public Connection getConnection()
+    {
+        return conn;
+    }
+
+    /**
+     * Update record of the node with the committed configuration
+     * @param remote node record
+     */
+    public void setRemote(NodeRecord remote)
+    {
+        this.remote = remote;
+    }
+
+    public Cluster getCluster()
+    {
+        return cluster;
+    }
+
+    /**
+     * Get raft group of the node
+     * @return group id
+     */
+    public int getGroup()
+    {
+        return cluster.getGroup();
+    }
+
     public boolean isPeer()
     {
         return type == Type.PEER;
     }
 
+    /**
+     * Is learner, learners are peers which don't vote and don't count for
+     * commit
+     * @return true if node is a learner
+     */
+    public boolean isLearner()
+    {
+        return remote.isLearner();
+    }
+
     public void setId(int id)
     {
         this.id = id;
@@ -167,6 +221,50 @@ public class Node implements MsgHandler
         return outTimestamp;
     }
 
+    /**
+     * Add a round trip time sample, 99th percentile of the last samples is
+     * used as round trip time of the node
+     *
+     * @param sample round trip time in milliseconds
+     */
+    public void addRttSample(long sample)
+    {
+        if (rttSamples == null) {
+            rttSamples = new long[RTT_SAMPLES];
+            rttSorted  = new long[RTT_SAMPLES];
+        }
+
+        rttSamples[rttCount % RTT_SAMPLES] = sample;
+        rttCount++;
+
+        //Percentile is recalculated periodically, sorting is not for free
+        if (rttCount < RTT_SAMPLES || rttCount % 8 == 0) {
+            final int count = Math.min(rttCount, RTT_SAMPLES);
+
+            System.arraycopy(rttSamples, 0, rttSorted, 0, count);
+            Arrays.sort(rttSorted, 0, count);
+            rtt = rttSorted[(count - 1) * 99 / 100];
+        }
+    }
+
+    /**
+     * Set round trip time, followers learn it from the leader
+     * @param rtt round trip time in milliseconds
+     */
+    public void setRtt(long rtt)
+    {
+        this.rtt = rtt;
+    }
+
+    /**
+     * Get round trip time
+     * @return 99th percentile of round trip time in milliseconds
+     */
+    public long getRtt()
+    {
+        return rtt;
+    }
+
     public NodeRecord getRemote()
     {
         return remote;
@@ -197,6 +295,16 @@ public class Node implements MsgHandler
         this.acknowledge = acknowledge;
     }
 
+    public long getRejectedSequence()
+    {
+        return rejectedSequence;
+    }
+
+    public void setRejectedSequence(long rejectedSequence)
+    {
+        this.rejectedSequence = rejectedSequence;
+    }
+
     public void setMatchIndex(long matchIndex)
     {
         this.matchIndex = matchIndex;
@@ -212,6 +320,20 @@ public class Node implements MsgHandler
         return nextIndex;
     }
 
+    /**
+     * Get latest broadcast round acknowledged by this node
+     * @return acknowledged round
+     */
+    public long getAckRound()
+    {
+        return ackRound;
+    }
+
+    public void setAckRound(long ackRound)
+    {
+        this.ackRound = ackRound;
+    }
+
     public void setNextIndex(long nextIndex)
     {
         this.nextIndex = nextIndex;
@@ -237,10 +359,10 @@ public class Node implements MsgHandler
     {
         inTimestamp = cluster.timestamp();
         for (Msg msg : incomings) {
-            if (connectionState != State.CONNECTED) {
-                break;
+            cluster.addReceived(msg);
+            if (connectionState == State.CONNECTED) {
+                msg.handle(this);
             }
-            msg.handle(this);
         }
 
         incomings.clear();
@@ -270,7 +392,7 @@ public class Node implements MsgHandler
     public void setConnection(Connection other)
     {
         if (conn != null && conn != other) {
-            worker.cancelConnection(conn);
+            releaseConnection();
         }
 
         conn = other;
@@ -283,19 +405,45 @@ public class Node implements MsgHandler
         List<TransportRecord> transports = remote.transports;
         TransportRecord record = transports.get(transport++ % transports.size());
 
+        connectionState = State.CONNECTION_IN_PROGRESS;
+
+        if (cluster.isHosted()) {
+            conn = cluster.getHost().connect(this, record);
+            return;
+        }
+
+        IOWorker worker = cluster.selectIoWorker();
         conn = new Connection(worker, null, record);
         conn.setNode(this);
         worker.addConnection(conn);
-        connectionState = State.CONNECTION_IN_PROGRESS;
+    }
+
+    /**
+     * Release connection, connections of the host are shared by raft groups,
+     * so peers of a group only leave the connection
+     */
+    private void releaseConnection()
+    {
+        if (cluster.isHosted() && isPeer()) {
+            conn.removeNode(this);
+        }
+        else {
+            conn.getWorker().cancelConnection(conn);
+        }
     }
 
     public void disconnect()
     {
-        cluster.getIoWorker().cancelConnection(conn);
+        if (conn != null) {
+            releaseConnection();
+        }
+
         conn = null;
         connectionState = State.DISCONNECTED;
         try {
-            snapshotSender.close();
+            if (snapshotSender != null) {
+                snapshotSender.close();
+            }
         }
         catch (IOException e) {
             cluster.logWarn(e);
@@ -306,56 +454,132 @@ public class Node implements MsgHandler
 
     public void sendConnectReq(String clusterName, String nodeName, boolean client)
     {
-        worker.addOutgoingMsg(conn, new ConnectReq(clusterName, nodeName, client));
+        send(new ConnectReq(clusterName, nodeName, client));
     }
 
     public void sendConnectResp(boolean success, ClusterRecord clusterRecord,
                                 long sequence, long acknowledge)
     {
-        worker.addOutgoingMsg(conn, new ConnectResp(success, clusterRecord,
-                                                    sequence, acknowledge));
+        send(new ConnectResp(success, clusterRecord,
+                             sequence, acknowledge));
     }
 
     public void sendPreVoteReq(long term, long lastLogIndex, long lastLogTerm)
     {
-        worker.addOutgoingMsg(conn, new PreVoteReq(term, lastLogIndex, lastLogTerm));
+        send(new PreVoteReq(term, lastLogIndex, lastLogTerm));
     }
 
     public void sendPreVoteResp(long term, long index, boolean granted)
     {
-        worker.addOutgoingMsg(conn, new PreVoteResp(term, index, granted));
+        send(new PreVoteResp(term, index, granted));
     }
 
     public void sendReqVoteReq(long term, long lastLogIndex,
                                long lastLogTerm, boolean leaderTransfer)
     {
-        worker.addOutgoingMsg(conn, new ReqVoteReq(term, lastLogIndex,
-                                                   lastLogTerm, leaderTransfer));
+        send(new ReqVoteReq(term, lastLogIndex,
+                            lastLogTerm, leaderTransfer));
     }
 
     public void sendReqVoteResp(long term, long index, boolean granted)
     {
-        worker.addOutgoingMsg(conn, new ReqVoteResp(term, index, granted));
+        send(new ReqVoteResp(term, index, granted));
+    }
+
+    /**
+     * Send message tagged with the raft group of this node
+     * @param msg message
+     */
+    private void send(Msg msg)
+    {
+        msg.setGroup(cluster.getGroup());
+        cluster.addOutgoingMsg(conn, msg);
+    }
+
+    /**
+     * Send heartbeat, heartbeats of the raft groups on a host are batched
+     * @param appendReq AppendReq without entries
+     */
+    public void sendHeartbeat(AppendReq appendReq)
+    {
+        outTimestamp = cluster.timestamp();
+        appendReq.setGroup(cluster.getGroup());
+        cluster.addHeartbeat(conn, appendReq);
     }
 
     public void sendAppendReq(AppendReq appendReq)
     {
-        worker.addOutgoingMsg(conn, appendReq);
+        outTimestamp = cluster.timestamp();
+        send(appendReq);
     }
 
-    public void sendAppendResp(long index, long term, boolean result)
+    public void sendAppendResp(long index, long term, boolean result, long round)
     {
-        worker.addOutgoingMsg(conn, new AppendResp(index, term, result));
+        send(new AppendResp(index, term, result, round));
     }
 
     public void sendClientResp(long sequence, boolean result, ByteBuffer data)
     {
-        worker.addOutgoingMsg(conn, new ClientResp(sequence, result, data));
+        if (responses == null) {
+            responses = new ClientRespBatch();
+            cluster.addResponder(this);
+        }
+
+        responses.add(new ClientResp(sequence, result, data));
+    }
+
+    /**
+     * Send client responses of this iteration
+     */
+    public void flushResponses()
+    {
+        if (responses == null) {
+            return;
+        }
+
+        List<ClientResp> list = responses.getResponses();
+        send(list.size() == 1 ? list.get(0) : responses);
+        responses = null;
+    }
+
+    public void sendClientBusy(long sequence, int count, long retryAfter)
+    {
+        send(new ClientBusy(sequence, count, retryAfter));
+    }
+
+    public void sendQueryResp(long id, boolean result, ByteBuffer data)
+    {
+        send(new QueryResp(id, result, data));
+    }
+
+    public void sendTimeoutNow(long term)
+    {
+        send(new TimeoutNow(term));
+    }
+
+    public void sendReadIndexReq(long id)
+    {
+        send(new ReadIndexReq(id));
+    }
+
+    public void sendReadIndexResp(long id, long index, boolean result)
+    {
+        send(new ReadIndexResp(id, index, result));
     }
 
     public void sendPublishReq(ClusterRecord record)
     {
-        worker.addOutgoingMsg(conn, new PublishReq(record));
+        send(new PublishReq(record));
+    }
+
+    public void sendJoinReq(ClusterRecord record)
+    {
+        send(new JoinReq(record));
+    }
+
+    public void sendJoinResp(ClusterRecord record, boolean result)
+    {
+        send(new JoinResp(record, result));
     }
 
     @Override
@@ -367,13 +591,13 @@ public class Node implements MsgHandler
     @Override
     public void handleJoinReq(JoinReq msg)
     {
-        throw new UnsupportedOperationException();
+        cluster.handleJoinReq(this, msg);
     }
 
     @Override
     public void handleJoinResp(JoinResp msg)
     {
-        throw new UnsupportedOperationException();
+        cluster.handleJoinResp(this, msg);
     }
 
     @Override
@@ -418,12 +642,42 @@ public class Node implements MsgHandler
         cluster.handleClientReq(this, msg);
     }
 
+    @Override
+    public void handleClientReqBatch(ClientReqBatch msg)
+    {
+        cluster.handleClientReqBatch(this, msg);
+    }
+
     @Override
     public void handleClientResp(ClientResp msg)
     {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void handleQueryReq(QueryReq msg)
+    {
+        cluster.handleQueryReq(this, msg);
+    }
+
+    @Override
+    public void handleTimeoutNow(TimeoutNow msg)
+    {
+        cluster.handleTimeoutNow(this, msg);
+    }
+
+    @Override
+    public void handleReadIndexReq(ReadIndexReq msg)
+    {
+        cluster.handleReadIndexReq(this, msg);
+    }
+
+    @Override
+    public void handleReadIndexResp(ReadIndexResp msg)
+    {
+        cluster.handleReadIndexResp(this, msg);
+    }
+
     @Override
     public void handleInstallSnapshotReq(InstallSnapshotReq msg)
     {
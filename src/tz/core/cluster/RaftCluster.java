@@ -3,6 +3,8 @@ package tz.core.cluster;
 import tz.base.record.ClusterRecord;
 import tz.base.record.NodeRecord;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Raft cluster interface, applications must implement this
  */
@@ -34,10 +36,48 @@ public interface RaftCluster
      */
     void addNode(NodeRecord nodeRecord);
 
+    /**
+     * Add a peer to a running cluster, must be called on the leader. Peer
+     * joins as a learner, gets the snapshot and the log, then it is promoted
+     * to voter when its log is close to the leader's (Config.catchUpLag).
+     * Peers can also join by connecting as a learner, they send a JoinReq.
+     *
+     * @param nodeRecord record of the peer
+     * @return           future completed with true once peer is a voter,
+     *                   false if change is rejected or peer couldn't catch
+     *                   up in Config.catchUpTimeout
+     */
+    CompletableFuture<Boolean> addPeer(NodeRecord nodeRecord);
+
+    /**
+     * Remove a peer from a running cluster, must be called on the leader
+     *
+     * @param nodeName name of the peer
+     * @return         future completed with true once removal is committed
+     */
+    CompletableFuture<Boolean> removePeer(String nodeName);
+
+
+    /**
+     * Transfer leadership to another peer, e.g before restarting the leader.
+     * Leader stops accepting new requests, brings the target up to date and
+     * tells it to start an election immediately
+     *
+     * @param nodeName name of the target peer
+     * @return         future completed with true if leadership is handed
+     *                 over, false if transfer is rejected or aborted
+     */
+    CompletableFuture<Boolean> transferLeadership(String nodeName);
 
     /**
      * Get current cluster record
      * @return cluster record
      */
     ClusterRecord getClusterRecord();
+
+    /**
+     * Get metrics, e.g admission control state of the leader
+     * @return metrics
+     */
+    Metrics getMetrics();
 }
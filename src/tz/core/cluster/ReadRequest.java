@@ -0,0 +1,80 @@
+package tz.core.cluster;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read request
+ *
+ * Query waiting on the leader until a quorum confirms leadership with a
+ * broadcast round started after the query is received. On followers, query
+ * waits for the read index from the leader and then for the local state to
+ * apply up to it. Data is null for read index requests of followers.
+ */
+public class ReadRequest
+{
+    private final Node node;
+    private final long id;
+    private final ByteBuffer data;
+    private final long round;
+    private long index;
+
+    /**
+     * Create new ReadRequest
+     *
+     * @param node  query owner
+     * @param id    query id
+     * @param data  raw query
+     * @param round leader's broadcast round when query is received, on
+     *              followers, id of the read index request
+     */
+    public ReadRequest(Node node, long id, ByteBuffer data, long round)
+    {
+        this.node  = node;
+        this.id    = id;
+        this.data  = data != null ? copyOf(data) : null;
+        this.round = round;
+    }
+
+    /**
+     * Query waits for later iterations, message it came with is released
+     * after the iteration, so data is copied
+     */
+    private static ByteBuffer copyOf(ByteBuffer data)
+    {
+        ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+        copy.put(data.duplicate());
+        copy.flip();
+
+        return copy;
+    }
+
+    public Node getNode()
+    {
+        return node;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public ByteBuffer getData()
+    {
+        return data;
+    }
+
+    public long getRound()
+    {
+        return round;
+    }
+
+    public long getIndex()
+    {
+        return index;
+    }
+
+    public void setIndex(long index)
+    {
+        this.index = index;
+    }
+}
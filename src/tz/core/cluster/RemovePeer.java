@@ -0,0 +1,26 @@
+package tz.core.cluster;
+
+import tz.base.poll.Event;
+
+import java.util.concurrent.CompletableFuture;
+
+public class RemovePeer implements Event
+{
+    private final Cluster cluster;
+    private final String name;
+    private final CompletableFuture<Boolean> future;
+
+    public RemovePeer(Cluster cluster, String name,
+                      CompletableFuture<Boolean> future)
+    {
+        this.cluster = cluster;
+        this.name    = name;
+        this.future  = future;
+    }
+
+    @Override
+    public void onEvent()
+    {
+        cluster.handleRemovePeer(name, future);
+    }
+}
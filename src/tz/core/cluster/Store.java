@@ -3,6 +3,7 @@ package tz.core.cluster;
 import tz.base.common.Buffer;
 import tz.base.exception.RaftException;
 import tz.core.msg.Entry;
+import tz.core.msg.FileRegion;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -216,6 +217,126 @@ public class Store
         lastTerm  = entry.getTerm();
     }
 
+    /**
+     * Append entries as a batch, each page the batch spans is written and
+     * hashed once
+     * @param batch entries
+     */
+    public void add(List<Entry> batch)
+    {
+        for (Entry entry : batch) {
+            if (entry.encodedLen() > MAX_ENTRY_SIZE) {
+                throw new RaftException("Entry's size exceeds store size " +
+                                            entry.encodedLen());
+            }
+        }
+
+        int from = 0;
+        while (from < batch.size()) {
+            MappedStore store = pages.peekLast();
+
+            int to  = from;
+            int len = 0;
+            while (to < batch.size() &&
+                   len + batch.get(to).encodedLen() <= store.remaining()) {
+                len += batch.get(to).encodedLen();
+                to++;
+            }
+
+            if (to == from) {
+                pages.add(new MappedStore(cluster, path, lastIndex, pageSize));
+                cluster.checkCompaction();
+                continue;
+            }
+
+            store.add(batch.subList(from, to));
+            from = to;
+
+            Entry last = batch.get(to - 1);
+            lastIndex  = last.getIndex();
+            lastTerm   = last.getTerm();
+        }
+    }
+
+    /**
+     * Append entries received from the leader, raw bytes of the entries are
+     * copied to the pages in bulk
+     *
+     * @param raw   buffer holding the entries
+     * @param batch entries, contiguous slices of raw
+     */
+    public void add(Buffer raw, List<Entry> batch)
+    {
+        int end = batch.get(0).getOffset();
+        for (Entry entry : batch) {
+            if (entry.encodedLen() > MAX_ENTRY_SIZE) {
+                throw new RaftException("Entry's size exceeds store size " +
+                                            entry.encodedLen());
+            }
+
+            if (entry.getOffset() != end) {
+                throw new RaftException("Entries are not contiguous");
+            }
+
+            end += entry.encodedLen();
+        }
+
+        int from = 0;
+        while (from < batch.size()) {
+            MappedStore store = pages.peekLast();
+
+            int to  = from;
+            int len = 0;
+            while (to < batch.size() &&
+                   len + batch.get(to).encodedLen() <= store.remaining()) {
+                len += batch.get(to).encodedLen();
+                to++;
+            }
+
+            if (to == from) {
+                pages.add(new MappedStore(cluster, path, lastIndex, pageSize));
+                cluster.checkCompaction();
+                continue;
+            }
+
+            store.add(raw, batch.subList(from, to));
+            from = to;
+
+            Entry last = batch.get(to - 1);
+            lastIndex  = last.getIndex();
+            lastTerm   = last.getTerm();
+        }
+    }
+
+    /**
+     * Get file region of the entries starting from index if they are not on
+     * the last page, follower is lagging and entries are sent from the file
+     *
+     * @param index  start index
+     * @param maxLen max byte count of the region
+     * @return       region or null if entries are on the last page
+     */
+    public FileRegion regionFrom(long index, int maxLen)
+    {
+        MappedStore last = pages.peekLast();
+        for (MappedStore page : pages) {
+            if (page == last) {
+                return null;
+            }
+
+            if (index <= page.getLastIndex()) {
+                return page.regionFrom(index, maxLen);
+            }
+        }
+
+        return null;
+    }
+
+    public int maxEntrySize()
+    {
+        return MAX_ENTRY_SIZE;
+    }
+
     public void removeFrom(long index)
     {
         for (MappedStore page : pages) {
@@ -0,0 +1,26 @@
+package tz.core.cluster;
+
+import tz.base.poll.Event;
+
+import java.util.concurrent.CompletableFuture;
+
+public class TransferLeadership implements Event
+{
+    private final Cluster cluster;
+    private final String target;
+    private final CompletableFuture<Boolean> future;
+
+    public TransferLeadership(Cluster cluster, String target,
+                              CompletableFuture<Boolean> future)
+    {
+        this.cluster = cluster;
+        this.target  = target;
+        this.future  = future;
+    }
+
+    @Override
+    public void onEvent()
+    {
+        cluster.handleTransferLeadership(target, future);
+    }
+}
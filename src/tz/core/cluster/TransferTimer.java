@@ -0,0 +1,37 @@
+package tz.core.cluster;
+
+import tz.base.poll.TimerEvent;
+
+/**
+ * Leadership transfer timer, transfer is aborted if target does not take
+ * over in time
+ */
+public class TransferTimer extends TimerEvent
+{
+    private final Cluster cluster;
+
+    /**
+     * Create new Transfer timer
+     *
+     * @param cluster   cluster
+     * @param periodic  is periodic
+     * @param interval  interval
+     * @param timeout   first timeout
+     */
+    public TransferTimer(Cluster cluster,
+                         boolean periodic, long interval, long timeout)
+    {
+        super(periodic, interval, timeout);
+
+        this.cluster = cluster;
+    }
+
+    /**
+     * Timeout callback
+     */
+    @Override
+    public void onTimeout()
+    {
+        cluster.onTransferTimeout();
+    }
+}
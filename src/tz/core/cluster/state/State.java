@@ -128,6 +128,19 @@ public abstract class State implements CommandExecutor
      * @param buf raw encoded command
      */
     public abstract ByteBuffer onCommand(long index, ByteBuffer buf);
+
+    /**
+     * Process read only query, implementation must not modify the state.
+     * States without query support reject queries, clients get a failed
+     * response
+     * @param buf raw encoded query
+     * @return    query result
+     */
+    public ByteBuffer onQuery(ByteBuffer buf)
+    {
+        throw new UnsupportedOperationException("State does not support queries");
+    }
+
     /**
      * On command received
      */
@@ -287,6 +300,7 @@ public abstract class State implements CommandExecutor
     public Response executeConfigCommand(ConfigCommand cmd)
     {
         record = cmd.getRecord();
+        cluster.applyConfig(record);
 
         /*
         for (NodeRecord node : record.peers) {
@@ -0,0 +1,36 @@
+package tz.core.host;
+
+import tz.base.poll.TimerEvent;
+
+/**
+ * Heartbeat timer of the raft groups running on a GroupWorker
+ */
+public class GroupHeartbeatTimer extends TimerEvent
+{
+    private final GroupWorker worker;
+
+    /**
+     * Create new GroupHeartbeatTimer
+     *
+     * @param worker   group worker
+     * @param periodic is periodic
+     * @param interval interval
+     * @param timeout  first timeout
+     */
+    public GroupHeartbeatTimer(GroupWorker worker,
+                               boolean periodic, long interval, long timeout)
+    {
+        super(periodic, interval, timeout);
+
+        this.worker = worker;
+    }
+
+    /**
+     * Timeout callback
+     */
+    @Override
+    public void onTimeout()
+    {
+        worker.onHeartbeatTimeout();
+    }
+}
@@ -0,0 +1,23 @@
+package tz.core.host;
+
+import tz.base.poll.Event;
+import tz.core.cluster.Cluster;
+
+/**
+ * Raft group has queued events, posted once until group handles them
+ */
+public class GroupReady implements Event
+{
+    private final Cluster cluster;
+
+    public GroupReady(Cluster cluster)
+    {
+        this.cluster = cluster;
+    }
+
+    @Override
+    public void onEvent()
+    {
+        cluster.handleGroupReady();
+    }
+}
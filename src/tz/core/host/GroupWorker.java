@@ -0,0 +1,158 @@
+package tz.core.host;
+
+import tz.base.log.Log;
+import tz.base.poll.Event;
+import tz.core.Connection;
+import tz.core.cluster.Cluster;
+import tz.core.msg.AppendReq;
+import tz.core.msg.HeartbeatBatch;
+import tz.core.worker.Worker;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Group worker
+ *
+ * Thread of a host running multiple raft groups. Groups share the loop and
+ * the heartbeat timer of the worker, heartbeats of the groups to the same host
+ * are sent in a single HeartbeatBatch message.
+ */
+public class GroupWorker extends Worker
+{
+    private final RaftHost host;
+    private final List<Cluster> groups;
+    private final Map<Connection, HeartbeatBatch> heartbeats;
+    private final GroupHeartbeatTimer heartbeatTimer;
+    private final Set<Cluster> flushGroups;
+
+    /**
+     * Create new GroupWorker
+     *
+     * @param host     host
+     * @param log      logger
+     * @param name     worker name
+     * @param interval heartbeat timer interval
+     */
+    public GroupWorker(RaftHost host, Log log, String name, long interval)
+    {
+        super(log, name, false);
+
+        this.host      = host;
+        groups         = new ArrayList<>();
+        heartbeats     = new HashMap<>();
+        flushGroups    = new HashSet<>();
+        heartbeatTimer = new GroupHeartbeatTimer(this, true, interval, 0);
+    }
+
+    /**
+     * Add group to this worker, must be called before start
+     * @param cluster raft group
+     */
+    public void addGroup(Cluster cluster)
+    {
+        groups.add(cluster);
+    }
+
+    /**
+     * Start thread
+     */
+    @Override
+    public void start()
+    {
+        heartbeatTimer.updateTimeout(timestamp() + heartbeatTimer.interval);
+        addTimer(heartbeatTimer);
+
+        super.start();
+    }
+
+    /**
+     * Heartbeat timer callback, leader groups add their heartbeats to batches
+     */
+    public void onHeartbeatTimeout()
+    {
+        for (Cluster cluster : groups) {
+            cluster.onHeartbeatTimeout();
+        }
+
+        flushHeartbeats();
+    }
+
+    /**
+     * Add heartbeat of a group to the batch of the connection
+     *
+     * @param conn      connection
+     * @param appendReq heartbeat
+     */
+    public void addHeartbeat(Connection conn, AppendReq appendReq)
+    {
+        HeartbeatBatch batch = heartbeats.get(conn);
+        if (batch == null) {
+            batch = new HeartbeatBatch();
+            heartbeats.put(conn, batch);
+        }
+
+        batch.add(appendReq);
+    }
+
+    /**
+     * Flush group after the shared log is synced
+     * @param cluster raft group
+     */
+    public void addFlush(Cluster cluster)
+    {
+        flushGroups.add(cluster);
+    }
+
+    private void flushGroups()
+    {
+        if (flushGroups.isEmpty()) {
+            return;
+        }
+
+        //Single fsync for the entries of all groups handled in this iteration
+        host.getSharedLog().sync();
+
+        for (Cluster cluster : flushGroups) {
+            cluster.flush();
+        }
+
+        flushGroups.clear();
+    }
+
+    private void flushHeartbeats()
+    {
+        if (heartbeats.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<Connection, HeartbeatBatch> entry : heartbeats.entrySet()) {
+            entry.getKey().getWorker().addOutgoingMsg(entry.getKey(),
+                                                      entry.getValue());
+        }
+
+        heartbeats.clear();
+    }
+
+    @Override
+    public void handleEvents(Deque<Event> events)
+    {
+        try {
+            Event event;
+            while ((event = events.poll()) != null) {
+                event.onEvent();
+            }
+        }
+        catch (Exception e) {
+            logError(e);
+        }
+
+        flushGroups();
+        flushHeartbeats();
+    }
+}
@@ -0,0 +1,347 @@
+package tz.core.host;
+
+import tz.base.common.Buffer;
+import tz.base.exception.RaftException;
+import tz.base.log.LogOwner;
+import tz.core.msg.Encoder;
+import tz.core.msg.Entry;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.zip.CRC32;
+
+/**
+ * Segment of the shared log
+ *
+ * Mapped file keeping entries of many raft groups. Each record is tagged with
+ * its group and index, truncation of a group's log is a record as well, so
+ * segments are append only. Layout is similar to MappedStore : sequence of
+ * the segment, records, end flag and crc32 of the content.
+ *
+ * Segment is deleted when no group has an entry in it.
+ */
+public class LogSegment
+{
+    public static final int ENTRY    = 1;
+    public static final int TRUNCATE = 2;
+
+    public static final int RECORD_HEADER_LEN = 1 + Encoder.MAX_VAR_INT_LEN +
+                                                Encoder.varLongLen(Long.MAX_VALUE);
+
+    private static final int END_FLAG       = 0;
+    private static final int END_FLAG_LEN   = 1;
+    private static final int CRC32_HASH_LEN = 8;
+
+    private final LogOwner owner;
+    private final Path path;
+    private final CRC32 crc32;
+    private FileChannel channel;
+    private Buffer buf;
+    private long sequence;
+    private int refCount;
+
+    /**
+     * Open existing segment
+     *
+     * @param owner logger
+     * @param path  segment file
+     */
+    public LogSegment(LogOwner owner, Path path)
+    {
+        this.owner = owner;
+        this.path  = path;
+        this.crc32 = new CRC32();
+
+        read();
+    }
+
+    /**
+     * Create new segment
+     *
+     * @param owner    logger
+     * @param dir      directory of the shared log
+     * @param sequence sequence of the segment, segments are replayed in order
+     * @param size     file size
+     */
+    public LogSegment(LogOwner owner, Path dir, long sequence, long size)
+    {
+        this.owner    = owner;
+        this.path     = Paths.get(dir + "/" + "wal-" + sequence + ".segment");
+        this.crc32    = new CRC32();
+        this.sequence = sequence;
+
+        init(size);
+    }
+
+    private void init(long size)
+    {
+        try {
+            channel = FileChannel.open(path, EnumSet.of(StandardOpenOption.CREATE,
+                                                        StandardOpenOption.READ,
+                                                        StandardOpenOption.WRITE));
+
+            buf = new Buffer(channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+
+            buf.putLong(sequence);
+            updateMeta(0, Long.BYTES);
+
+            // Windows requires this to allocate space on disk
+            buf.put((int) size - 1, (byte) 0);
+            buf.force();
+        }
+        catch (IOException e) {
+            owner.logError(e);
+            delete();
+            throw new RaftException(e);
+        }
+    }
+
+    /**
+     * Read segment, scan records to find the end of content and verify hash
+     */
+    private void read()
+    {
+        try {
+            channel = FileChannel.open(path, EnumSet.of(StandardOpenOption.READ,
+                                                        StandardOpenOption.WRITE));
+
+            final FileChannel.MapMode mode = FileChannel.MapMode.READ_WRITE;
+            buf = new Buffer(channel.map(mode, 0, channel.size()));
+
+            sequence = buf.getLong();
+
+            while (true) {
+                //0 is a sentinel to end of file
+                final int type = buf.get(buf.position());
+                if (type == END_FLAG) {
+                    break;
+                }
+
+                buf.advance(1);
+                buf.getVarInt();
+                buf.getVarLong();
+
+                if (type == ENTRY) {
+                    final int len = buf.getVarInt();
+                    buf.advance(len);
+                }
+            }
+
+            final int pos = buf.position();
+
+            buf.advance(END_FLAG_LEN);
+            final long hash = buf.getLong();
+
+            buf.position(0);
+            buf.limit(pos);
+
+            crc32.update(buf.backend());
+
+            if (crc32.getValue() != hash) {
+                throw new RaftException("Segment is inconsistent : " + path);
+            }
+
+            buf.position(pos);
+            buf.limit((int) channel.size());
+        }
+        catch (Exception e) {
+            owner.logError(e);
+            delete();
+            throw new RaftException(e);
+        }
+    }
+
+    private void updateMeta(int pos, int len)
+    {
+        //End flag
+        buf.put(END_FLAG);
+
+        //Hash value
+        crc32.update(buf.slice(pos, len).backend());
+        buf.putLong(crc32.getValue());
+        buf.position(buf.position() - END_FLAG_LEN - CRC32_HASH_LEN);
+    }
+
+    /**
+     * Get records of the segment, offsets of the records in returned buffer
+     * are same as their offsets in the file
+     *
+     * @return records
+     */
+    public Buffer records()
+    {
+        Buffer records = buf.slice(0, buf.position());
+        records.position(Long.BYTES);
+
+        return records;
+    }
+
+    /**
+     * Get a view of the segment, views have their own position and limit, so
+     * each raft group slices its entries from its own view
+     *
+     * @return view
+     */
+    public Buffer view()
+    {
+        return buf.duplicate();
+    }
+
+    /**
+     * Append entry record
+     *
+     * @param group raft group of the entry
+     * @param entry entry, index of the entry must be set
+     * @return      offset of the entry in the segment
+     */
+    public int add(int group, Entry entry)
+    {
+        final int pos    = buf.position();
+        final int offset = put(group, entry);
+
+        updateMeta(pos, buf.position() - pos);
+
+        return offset;
+    }
+
+    /**
+     * Append entry record without updating the hash, records of a batch are
+     * hashed at once with seal()
+     *
+     * @param group raft group of the entry
+     * @param entry entry, index of the entry must be set
+     * @return      offset of the entry in the segment
+     */
+    public int put(int group, Entry entry)
+    {
+        buf.put(ENTRY);
+        buf.putVarInt(group);
+        buf.putVarLong(entry.getIndex());
+
+        final int offset = buf.position();
+        entry.encode(buf);
+
+        return offset;
+    }
+
+    /**
+     * Update hash for the records starting from pos
+     * @param pos offset of the first record of the batch
+     */
+    public void seal(int pos)
+    {
+        updateMeta(pos, buf.position() - pos);
+    }
+
+    /**
+     * Get write position
+     * @return offset of the next record
+     */
+    public int position()
+    {
+        return buf.position();
+    }
+
+    /**
+     * Append truncate record, entries of the group starting from index are
+     * removed when segments are replayed
+     *
+     * @param group raft group
+     * @param index index to start deleting(inclusive)
+     */
+    public void truncate(int group, long index)
+    {
+        final int pos = buf.position();
+
+        buf.put(TRUNCATE);
+        buf.putVarInt(group);
+        buf.putVarLong(index);
+
+        updateMeta(pos, buf.position() - pos);
+    }
+
+    /**
+     * Remaining space in this segment
+     * @return remaining bytes count
+     */
+    public int remaining()
+    {
+        return buf.remaining() - END_FLAG_LEN - CRC32_HASH_LEN;
+    }
+
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    public void retain()
+    {
+        refCount++;
+    }
+
+    /**
+     * Release a reference
+     * @return true if no group has an entry in this segment
+     */
+    public boolean release()
+    {
+        return --refCount == 0;
+    }
+
+    public boolean isReferenced()
+    {
+        return refCount > 0;
+    }
+
+    /**
+     * Flush mapped buffer to disk
+     */
+    public void force()
+    {
+        buf.force();
+    }
+
+    /**
+     * Close segment, mapped buffer is released by GC as slices of it might be
+     * still referenced by outgoing messages
+     */
+    public void close()
+    {
+        try {
+            if (buf != null) {
+                buf.force();
+            }
+
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        catch (IOException e) {
+            owner.logError(e);
+        }
+    }
+
+    /**
+     * Delete file
+     */
+    public void delete()
+    {
+        try {
+            close();
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e) {
+            owner.logError(e);
+        }
+    }
+}
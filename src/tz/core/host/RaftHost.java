@@ -0,0 +1,291 @@
+package tz.core.host;
+
+import tz.base.log.Log;
+import tz.base.poll.TimerWheel;
+import tz.base.record.TransportRecord;
+import tz.base.transport.listener.Listener;
+import tz.core.Connection;
+import tz.core.cluster.Callbacks;
+import tz.core.cluster.Cluster;
+import tz.core.cluster.Config;
+import tz.core.cluster.Node;
+import tz.core.cluster.state.State;
+import tz.core.msg.AppendReq;
+import tz.core.msg.HeartbeatBatch;
+import tz.core.msg.Msg;
+import tz.core.worker.IOWorker.IOOwner;
+import tz.core.worker.IOWorker.IOWorker;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Raft host
+ *
+ * Runs many raft groups in a single process. Groups share a fixed number of
+ * group workers and a single IO worker, so threads do not grow with the group
+ * count. There is one connection to each remote host, groups on the remote
+ * host are multiplexed on it. Connections are spread over the IO workers.
+ */
+public class RaftHost implements IOOwner
+{
+    private final String name;
+    private final String workingDir;
+    private final Config config;
+    private final Callbacks callbacks;
+    private final Log log;
+    private final IOWorker[] ioWorkers;
+    private final GroupWorker[] workers;
+    private final Map<Integer, Cluster> groups;
+    private final SharedLog sharedLog;
+
+    //Guarded by this, accessed by group workers and the IO worker
+    private final Map<String, Connection> peers;
+    private final Set<Connection> established;
+
+    /**
+     * Create new RaftHost
+     *
+     * @param name       local node name, it is same for all groups
+     * @param workingDir working directory, groups have their own directories
+     * @param config     config, config.clusterWorkerCount and
+     *                   config.ioWorkerCount are the thread counts
+     * @param callbacks  callbacks
+     * @throws IOException on any error while opening shared log
+     */
+    public RaftHost(String name, String workingDir,
+                    Config config, Callbacks callbacks) throws IOException
+    {
+        this.name       = name;
+        this.workingDir = workingDir;
+        this.config     = config;
+        this.callbacks  = callbacks;
+        this.log        = new Log(callbacks, config.logLevel);
+        this.ioWorkers  = IOWorker.create(this, log, name, config.ioWorkerCount);
+        this.workers    = new GroupWorker[Math.max(1, config.clusterWorkerCount)];
+
+        groups      = new HashMap<>();
+        peers       = new HashMap<>();
+        established = new HashSet<>();
+        sharedLog   = config.sharedLog ?
+                      new SharedLog(ioWorkers[0], Paths.get(workingDir + "/wal/" + name + "/"),
+                                    config.storeSize) : null;
+
+        if (sharedLog != null) {
+            sharedLog.open();
+        }
+
+        final long interval = Math.max(1, config.heartbeatInterval / 2);
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new GroupWorker(this, log,
+                                         name + " Group Worker " + i, interval);
+            if (config.timerWheel) {
+                workers[i].setTimer(new TimerWheel(config.timerTick, 256));
+            }
+
+            workers[i].setSpinTime(config.spinTime);
+        }
+
+        for (IOWorker ioWorker : ioWorkers) {
+            ioWorker.setSpinTime(config.spinTime);
+        }
+    }
+
+    /**
+     * Add a raft group, must be called before start
+     *
+     * @param group       group id, must be same on all hosts of the group
+     * @param clusterName cluster name of the group
+     * @param state       state machine of the group
+     * @return            raft group
+     * @throws IOException on any error while opening group's files
+     */
+    public Cluster addGroup(int group, String clusterName,
+                            State state) throws IOException
+    {
+        if (groups.containsKey(group)) {
+            throw new IllegalArgumentException("Group exists : " + group);
+        }
+
+        GroupWorker worker = workers[group % workers.length];
+        Cluster cluster = new Cluster(this, worker, group, clusterName, name,
+                                      workingDir, config, callbacks, state);
+        worker.addGroup(cluster);
+        groups.put(group, cluster);
+
+        return cluster;
+    }
+
+    public Cluster getGroup(int group)
+    {
+        return groups.get(group);
+    }
+
+    /**
+     * Get IO worker listening on the endpoints
+     * @return first IO worker
+     */
+    public IOWorker getIoWorker()
+    {
+        return ioWorkers[0];
+    }
+
+    public IOWorker[] getIoWorkers()
+    {
+        return ioWorkers;
+    }
+
+    /**
+     * Get shared log
+     * @return shared log, null if groups have their own stores
+     */
+    public SharedLog getSharedLog()
+    {
+        return sharedLog;
+    }
+
+    /**
+     * Start threads of the host
+     */
+    public void start()
+    {
+        //Groups are opened, log of the groups not hosted anymore is released
+        if (sharedLog != null) {
+            sharedLog.releaseUnclaimed();
+        }
+
+        for (IOWorker ioWorker : ioWorkers) {
+            ioWorker.start();
+        }
+
+        for (GroupWorker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Get connection to a peer, connection is created by the first group
+     * connecting to the peer, other groups attach to it.
+     *
+     * @param node   peer node of a group
+     * @param record transport to connect if there is no connection
+     * @return       connection
+     */
+    public synchronized Connection connect(Node node, TransportRecord record)
+    {
+        Connection conn = peers.get(node.getName());
+        if (conn == null) {
+            IOWorker ioWorker = selectIoWorker();
+            conn = new Connection(ioWorker, null, record);
+            conn.setNode(node);
+            peers.put(node.getName(), conn);
+            ioWorker.addConnection(conn);
+
+            return conn;
+        }
+
+        conn.setNode(node);
+        if (established.contains(conn)) {
+            node.getCluster().sendConnectionUpdate(conn,
+                                                   Connection.Status.OUTGOING_SUCCEED);
+        }
+
+        return conn;
+    }
+
+    @Override
+    public void sendListenerUpdate(Listener listener, boolean active)
+    {
+
+    }
+
+    @Override
+    public void handleListenerUpdate(Listener listener, boolean active)
+    {
+
+    }
+
+    /**
+     * Connection update from IO worker, every group on the connection is
+     * notified
+     *
+     * @param conn   connection
+     * @param status connection status
+     */
+    @Override
+    public synchronized void sendConnectionUpdate(Connection conn,
+                                                  Connection.Status status)
+    {
+        switch (status) {
+            case INCOMING:
+                return;
+            case OUTGOING_SUCCEED:
+                established.add(conn);
+                break;
+            case OUTGOING_FAILED:
+            case DISCONNECTED:
+                established.remove(conn);
+                peers.values().remove(conn);
+                break;
+        }
+
+        for (Node node : conn.getNodes()) {
+            node.getCluster().sendConnectionUpdate(conn, status);
+        }
+    }
+
+    @Override
+    public void handleConnectionUpdate(Connection conn, Connection.Status status)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Route incoming message to its group, batched heartbeats are split
+     *
+     * @param conn connection
+     * @param msg  message
+     */
+    @Override
+    public void sendIncomingMsg(Connection conn, Msg msg)
+    {
+        if (msg.getType() == HeartbeatBatch.TYPE) {
+            for (AppendReq req : ((HeartbeatBatch) msg).getHeartbeats()) {
+                //Group is not attached to the connection yet
+                if (conn.hasNode(req.getGroup())) {
+                    groups.get(req.getGroup()).sendIncomingMsg(conn, req);
+                }
+            }
+
+            //Heartbeats are decoded to their fields, batch is not needed
+            msg.release();
+            return;
+        }
+
+        Cluster cluster = groups.get(msg.getGroup());
+        if (cluster == null) {
+            conn.getWorker().logWarn("Message for unknown group : ",
+                                     msg.getGroup(), " from ", conn);
+            msg.release();
+            return;
+        }
+
+        cluster.sendIncomingMsg(conn, msg);
+    }
+
+    @Override
+    public void handleIncomingMsg(Connection conn, Msg msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IOWorker selectIoWorker()
+    {
+        return IOWorker.leastLoaded(ioWorkers);
+    }
+}
@@ -0,0 +1,380 @@
+package tz.core.host;
+
+import tz.base.common.Buffer;
+import tz.base.log.LogOwner;
+import tz.core.msg.Entry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Shared write ahead log
+ *
+ * Raft groups of a host append their entries to a common segmented log, so
+ * a single fsync persists entries of all groups appended since the previous
+ * one (group commit). Groups keep their own index space, entries are tagged
+ * with group and index. Truncation is a record in the log and compaction of a
+ * group releases its references to the segments, a segment is deleted when
+ * no group refers to it.
+ *
+ * Groups append from different threads, appends are serialized by this
+ * object. Sync is serialized separately, a thread waiting for sync returns
+ * without another fsync if its appends are already persisted by another one.
+ */
+public class SharedLog
+{
+    private final LogOwner owner;
+    private final Path path;
+    private final long segmentSize;
+    private final List<LogSegment> segments;
+    private final Set<LogSegment> dirtySegments;
+    private final Map<Integer, Deque<SharedPage>> recovered;
+    private final Object syncLock;
+    private LogSegment active;
+    private long sequence;
+
+    private volatile long appended;
+    private volatile long synced;
+
+    /**
+     * Create new SharedLog
+     *
+     * @param owner       logger
+     * @param path        directory of the segments
+     * @param segmentSize size of a segment file
+     */
+    public SharedLog(LogOwner owner, Path path, long segmentSize)
+    {
+        this.owner       = owner;
+        this.path        = path;
+        this.segmentSize = segmentSize;
+
+        segments      = new ArrayList<>();
+        dirtySegments = new HashSet<>();
+        recovered     = new HashMap<>();
+        syncLock      = new Object();
+    }
+
+    /**
+     * Open segments and replay records to rebuild pages of the groups, groups
+     * claim their pages when they are opened
+     *
+     * @throws IOException on any IO error
+     */
+    public synchronized void open() throws IOException
+    {
+        Files.createDirectories(path);
+
+        List<Path> paths = Files.walk(path)
+                                .filter(Files::isRegularFile)
+                                .filter(p -> p.toString().endsWith(".segment"))
+                                .collect(Collectors.toList());
+
+        for (Path path : paths) {
+            try {
+                segments.add(new LogSegment(owner, path));
+            }
+            catch (Exception e) {
+                owner.logError(e);
+            }
+        }
+
+        segments.sort(Comparator.comparingLong(LogSegment::getSequence));
+
+        for (LogSegment segment : segments) {
+            replay(segment);
+            sequence = segment.getSequence();
+            owner.logInfo("Opened segment at ", segment.getPath());
+        }
+
+        active = new LogSegment(owner, path, ++sequence, segmentSize);
+        segments.add(active);
+    }
+
+    private void replay(LogSegment segment)
+    {
+        Buffer records = segment.records();
+        while (records.hasRemaining()) {
+            final int type  = records.get();
+            final int group = records.getVarInt();
+            final long index = records.getVarLong();
+
+            Deque<SharedPage> pages = recovered.get(group);
+            if (pages == null) {
+                pages = new ArrayDeque<>();
+                recovered.put(group, pages);
+            }
+
+            if (type == LogSegment.TRUNCATE) {
+                truncatePages(pages, index);
+                SharedPage last = pages.peekLast();
+                if (last == null || last.getSegment() != segment) {
+                    pages.add(new SharedPage(segment, last != null ?
+                                                      last.getLastIndex() : index - 1));
+                }
+                continue;
+            }
+
+            Entry entry = new Entry(records);
+            entry.setIndex(index);
+
+            SharedPage last = pages.peekLast();
+            if (last != null && index <= last.getLastIndex()) {
+                truncatePages(pages, index);
+                last = pages.peekLast();
+            }
+
+            if (last == null || last.getSegment() != segment ||
+                                last.getLastIndex() != index - 1) {
+                last = new SharedPage(segment, index - 1);
+                pages.add(last);
+            }
+
+            last.addEntry(entry, records.position());
+        }
+    }
+
+    private void truncatePages(Deque<SharedPage> pages, long index)
+    {
+        for (SharedPage page : pages) {
+            page.removeFrom(index);
+        }
+
+        while (!pages.isEmpty() && pages.peekLast().getPrevIndex() >= index) {
+            release(pages.removeLast());
+        }
+    }
+
+    /**
+     * Claim pages of a group read from the segments
+     *
+     * @param group raft group
+     * @return      pages, ordered
+     */
+    public synchronized Deque<SharedPage> claim(int group)
+    {
+        Deque<SharedPage> pages = recovered.remove(group);
+        return pages != null ? pages : new ArrayDeque<>();
+    }
+
+    /**
+     * Release pages of the groups which are not hosted anymore and delete
+     * segments without any reference
+     */
+    public synchronized void releaseUnclaimed()
+    {
+        for (Deque<SharedPage> pages : recovered.values()) {
+            for (SharedPage page : pages) {
+                page.getSegment().release();
+            }
+        }
+
+        recovered.clear();
+
+        Iterator<LogSegment> it = segments.iterator();
+        while (it.hasNext()) {
+            LogSegment segment = it.next();
+            if (segment != active && !segment.isReferenced()) {
+                it.remove();
+                segment.delete();
+            }
+        }
+    }
+
+    /**
+     * Append entry of a group
+     *
+     * @param group raft group
+     * @param last  last page of the group, null if there is none
+     * @param entry entry, index of the entry must be set
+     * @return      page the entry is added to, a new page if last page is
+     *              not on the active segment
+     */
+    public synchronized SharedPage append(int group, SharedPage last, Entry entry)
+    {
+        final int headerLen = entry.headerLen();
+        final int dataLen   = entry.dataLen();
+
+        ensureSpace(LogSegment.RECORD_HEADER_LEN + headerLen + dataLen);
+
+        SharedPage page = last;
+        if (page == null || page.getSegment() != active) {
+            page = new SharedPage(active, entry.getIndex() - 1);
+        }
+
+        final int offset = active.add(group, entry);
+        page.add(entry, offset, headerLen, dataLen);
+        setDirty();
+
+        return page;
+    }
+
+    /**
+     * Append entries of a group as a batch, records of the batch on a segment
+     * are hashed at once
+     *
+     * @param group raft group
+     * @param pages pages of the group, pages created for the batch are added
+     * @param batch entries, indexes of the entries must be set
+     * @return      true if a new page is added
+     */
+    public synchronized boolean append(int group, Deque<SharedPage> pages,
+                                       List<Entry> batch)
+    {
+        boolean added = false;
+        int from      = 0;
+
+        while (from < batch.size()) {
+            ensureSpace(recordLen(batch.get(from)));
+
+            SharedPage page = pages.peekLast();
+            if (page == null || page.getSegment() != active) {
+                page = new SharedPage(active, batch.get(from).getIndex() - 1);
+                pages.add(page);
+                added = true;
+            }
+
+            final int pos   = active.position();
+            final int space = active.remaining();
+            int len         = 0;
+
+            while (from < batch.size()) {
+                Entry entry = batch.get(from);
+                len += recordLen(entry);
+                if (len > space) {
+                    break;
+                }
+
+                final int offset = active.put(group, entry);
+                page.add(entry, offset, entry.headerLen(), entry.dataLen());
+                from++;
+            }
+
+            active.seal(pos);
+            setDirty();
+        }
+
+        return added;
+    }
+
+    private static int recordLen(Entry entry)
+    {
+        return LogSegment.RECORD_HEADER_LEN + entry.headerLen() + entry.dataLen();
+    }
+
+    /**
+     * Truncate log of a group, page on the active segment keeps the segment,
+     * so the truncate record, until the group compacts its log
+     *
+     * @param group raft group
+     * @param last  last page of the group, null if there is none
+     * @param index index to start deleting(inclusive)
+     * @return      page on the active segment
+     */
+    public synchronized SharedPage truncate(int group, SharedPage last, long index)
+    {
+        ensureSpace(LogSegment.RECORD_HEADER_LEN);
+
+        active.truncate(group, index);
+        setDirty();
+
+        if (last != null && last.getSegment() == active) {
+            return last;
+        }
+
+        return new SharedPage(active, last != null ? last.getLastIndex() : index - 1);
+    }
+
+    /**
+     * Release page of a group, segment is deleted if it is not referenced
+     * @param page page
+     */
+    public synchronized void release(SharedPage page)
+    {
+        LogSegment segment = page.getSegment();
+        if (segment.release() && active != null && segment != active) {
+            segments.remove(segment);
+            dirtySegments.remove(segment);
+            segment.delete();
+        }
+    }
+
+    private void ensureSpace(int len)
+    {
+        if (active.remaining() >= len) {
+            return;
+        }
+
+        LogSegment prev = active;
+
+        active = new LogSegment(owner, path, ++sequence, segmentSize);
+        segments.add(active);
+
+        if (!prev.isReferenced()) {
+            segments.remove(prev);
+            dirtySegments.remove(prev);
+            prev.delete();
+        }
+    }
+
+    private void setDirty()
+    {
+        dirtySegments.add(active);
+        appended++;
+    }
+
+    /**
+     * Persist appended records, one fsync covers appends of all groups
+     */
+    public void sync()
+    {
+        if (synced == appended) {
+            return;
+        }
+
+        synchronized (syncLock) {
+            final long target;
+            final List<LogSegment> dirty;
+
+            synchronized (this) {
+                if (synced == appended) {
+                    return;
+                }
+
+                target = appended;
+                dirty  = new ArrayList<>(dirtySegments);
+                dirtySegments.clear();
+            }
+
+            for (LogSegment segment : dirty) {
+                segment.force();
+            }
+
+            synced = target;
+        }
+    }
+
+    /**
+     * Close segments
+     */
+    public synchronized void close()
+    {
+        for (LogSegment segment : segments) {
+            segment.close();
+        }
+
+        segments.clear();
+    }
+
+    /**
+     * Max entry size, an entry must fit into an empty segment
+     * @return max entry size
+     */
+    public int maxEntrySize()
+    {
+        return (int) segmentSize - 128 - LogSegment.RECORD_HEADER_LEN;
+    }
+}
@@ -0,0 +1,165 @@
+package tz.core.host;
+
+import tz.base.common.Buffer;
+import tz.core.msg.Entry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entries of a raft group in a segment of the shared log
+ *
+ * Entries of other groups might be between entries of the page, so raw
+ * entries are returned as a chain of buffers, one for each run of adjacent
+ * entries.
+ */
+public class SharedPage
+{
+    private final LogSegment segment;
+    private final Buffer view;
+    private final long prevIndex;
+    private final List<Entry> entries;
+    private int[] ends;
+
+    /**
+     * Create new SharedPage
+     *
+     * @param segment   segment
+     * @param prevIndex index of the entry before the first entry of the page
+     */
+    public SharedPage(LogSegment segment, long prevIndex)
+    {
+        this.segment   = segment;
+        this.view      = segment.view();
+        this.prevIndex = prevIndex;
+
+        entries = new ArrayList<>();
+        ends    = new int[64];
+
+        segment.retain();
+    }
+
+    public LogSegment getSegment()
+    {
+        return segment;
+    }
+
+    /**
+     * Add entry written to segment
+     *
+     * @param entry     entry
+     * @param offset    offset of the entry in the segment
+     * @param headerLen encoded header length of the entry
+     * @param dataLen   data length of the entry
+     */
+    public void add(Entry entry, int offset, int headerLen, int dataLen)
+    {
+        entry.setHeader(view.slice(offset, headerLen));
+        entry.setData(view.slice(offset + headerLen, dataLen));
+
+        addEntry(entry, offset + headerLen + dataLen);
+    }
+
+    /**
+     * Add entry read from segment
+     *
+     * @param entry entry
+     * @param end   offset of the end of the entry in the segment
+     */
+    public void addEntry(Entry entry, int end)
+    {
+        if (entries.size() == ends.length) {
+            ends = Arrays.copyOf(ends, ends.length * 2);
+        }
+
+        ends[entries.size()] = end;
+        entries.add(entry);
+    }
+
+    public Entry getEntry(long index)
+    {
+        int pos = (int) (index - prevIndex - 1);
+        if (pos < 0 || pos >= entries.size()) {
+            return null;
+        }
+
+        return entries.get(pos);
+    }
+
+    /**
+     * Remove entries from index to end of the page
+     * @param index index to start deleting(inclusive)
+     */
+    public void removeFrom(long index)
+    {
+        int pos = (int) (index - prevIndex - 1);
+        if (pos < 0) {
+            pos = 0;
+        }
+
+        if (pos >= entries.size()) {
+            return;
+        }
+
+        entries.subList(pos, entries.size()).clear();
+    }
+
+    public long getPrevIndex()
+    {
+        return prevIndex;
+    }
+
+    public long getLastIndex()
+    {
+        return prevIndex + entries.size();
+    }
+
+    public long getLastTerm()
+    {
+        Entry entry = getEntry(getLastIndex());
+        return entry == null ? 0 : entry.getTerm();
+    }
+
+    public boolean isEmpty()
+    {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Append raw entries starting from index to the chain
+     *
+     * @param index start index
+     * @param tail  tail of the chain
+     * @return      new tail of the chain
+     */
+    public Buffer rawEntriesFrom(long index, Buffer tail)
+    {
+        if (index < prevIndex + 1) {
+            index = prevIndex + 1;
+        }
+
+        int pos = (int) (index - prevIndex - 1);
+        if (pos >= entries.size()) {
+            return tail;
+        }
+
+        int begin = entries.get(pos).getOffset();
+        int end   = ends[pos];
+
+        for (int i = pos + 1; i < entries.size(); i++) {
+            int offset = entries.get(i).getOffset();
+            if (offset != end) {
+                tail.next = view.slice(begin, end - begin);
+                tail      = tail.next;
+                begin     = offset;
+            }
+
+            end = ends[i];
+        }
+
+        tail.next = view.slice(begin, end - begin);
+
+        return tail.next;
+    }
+}
@@ -0,0 +1,294 @@
+package tz.core.host;
+
+import tz.base.common.Buffer;
+import tz.base.exception.RaftException;
+import tz.core.cluster.Cluster;
+import tz.core.cluster.Store;
+import tz.core.msg.Entry;
+import tz.core.msg.FileRegion;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Log store of a raft group on the shared log of the host
+ *
+ * Group keeps its own index space, entries are read through pages of the
+ * group on the shared segments. Flush is a group commit on the shared log.
+ */
+public class SharedStore extends Store
+{
+    private final Cluster cluster;
+    private final SharedLog sharedLog;
+    private final int group;
+    private final Deque<SharedPage> pages;
+    private long lastIndex;
+    private long lastTerm;
+
+    /**
+     * Create new SharedStore
+     *
+     * @param cluster   raft group
+     * @param sharedLog shared log of the host
+     * @param path      directory of the group
+     */
+    public SharedStore(Cluster cluster, SharedLog sharedLog, Path path)
+    {
+        super(cluster, path, sharedLog.maxEntrySize());
+
+        this.cluster   = cluster;
+        this.sharedLog = sharedLog;
+        this.group     = cluster.getGroup();
+        this.pages     = new ArrayDeque<>();
+    }
+
+    /**
+     * Open pages of the group, pages should be sequential, if we detect pages
+     * out of order, sequential ones will be kept, rest will be released. As we
+     * will start as follower, leader will send us the missing log anyway.
+     *
+     * @param snapshotIndex index of the snapshot
+     */
+    @Override
+    public void open(long snapshotIndex)
+    {
+        pages.addAll(sharedLog.claim(group));
+
+        while (!pages.isEmpty() && pages.peekFirst().getLastIndex() < snapshotIndex) {
+            sharedLog.release(pages.removeFirst());
+        }
+
+        if (!pages.isEmpty() && pages.peekFirst().getPrevIndex() > snapshotIndex) {
+            releaseAll();
+        }
+
+        long index = -1;
+        Deque<SharedPage> valid = new ArrayDeque<>();
+        while (!pages.isEmpty()) {
+            SharedPage page = pages.removeFirst();
+            if (index != -1 && page.getPrevIndex() != index) {
+                sharedLog.release(page);
+                releaseAll();
+                break;
+            }
+
+            valid.add(page);
+            index = page.getLastIndex();
+        }
+
+        pages.addAll(valid);
+
+        for (SharedPage page : pages) {
+            cluster.logInfo("Opened shared page at " + page.getSegment().getPath() +
+                            " entries : (" + page.getPrevIndex() +
+                            " to " + page.getLastIndex() + "]");
+        }
+
+        lastIndex = pages.isEmpty() ? snapshotIndex : pages.getLast().getLastIndex();
+        lastTerm  = termOf(lastIndex);
+    }
+
+    private void releaseAll()
+    {
+        for (SharedPage page : pages) {
+            sharedLog.release(page);
+        }
+
+        pages.clear();
+    }
+
+    private long termOf(long index)
+    {
+        Entry entry = get(index);
+        return entry == null ? 0 : entry.getTerm();
+    }
+
+    /**
+     * Segments are closed by the shared log
+     */
+    @Override
+    public void close()
+    {
+
+    }
+
+    @Override
+    public void deleteFirst()
+    {
+        sharedLog.release(pages.removeFirst());
+    }
+
+    /**
+     * Delete log of the group, a truncate record is written as the segments
+     * are shared with other groups
+     */
+    @Override
+    public void deleteAll()
+    {
+        pages.addAll(sharedLog.claim(group));
+        releaseAll();
+
+        pages.add(sharedLog.truncate(group, null, 1));
+        lastIndex = 0;
+        lastTerm  = 0;
+    }
+
+    @Override
+    public long getLastIndex()
+    {
+        return lastIndex;
+    }
+
+    @Override
+    public long getLastTerm()
+    {
+        return lastTerm;
+    }
+
+    @Override
+    public boolean isStarted()
+    {
+        return lastIndex != 0;
+    }
+
+    @Override
+    public boolean isSnapshotPossible()
+    {
+        return pages.size() > 1;
+    }
+
+    @Override
+    public void flush()
+    {
+        sharedLog.sync();
+    }
+
+    @Override
+    public void add(Entry entry)
+    {
+        if (entry.encodedLen() > sharedLog.maxEntrySize()) {
+            throw new RaftException("Entry's size exceeds store size " +
+                                        entry.encodedLen());
+        }
+
+        entry.setIndex(lastIndex + 1);
+
+        SharedPage last = pages.peekLast();
+        SharedPage page = sharedLog.append(group, last, entry);
+
+        lastIndex = entry.getIndex();
+        lastTerm  = entry.getTerm();
+
+        if (page != last) {
+            pages.add(page);
+            if (last != null) {
+                cluster.checkCompaction();
+            }
+        }
+    }
+
+    @Override
+    public void add(List<Entry> batch)
+    {
+        for (Entry entry : batch) {
+            if (entry.encodedLen() > sharedLog.maxEntrySize()) {
+                throw new RaftException("Entry's size exceeds store size " +
+                                            entry.encodedLen());
+            }
+
+            entry.setIndex(++lastIndex);
+        }
+
+        final boolean empty = pages.isEmpty();
+        if (sharedLog.append(group, pages, batch) && !empty) {
+            cluster.checkCompaction();
+        }
+
+        lastTerm = batch.get(batch.size() - 1).getTerm();
+    }
+
+    /**
+     * Records on the shared log have their own headers, entries are
+     * appended as a batch
+     */
+    @Override
+    public void add(Buffer raw, List<Entry> batch)
+    {
+        add(batch);
+    }
+
+    /**
+     * Segments hold records of all groups, entries are not contiguous
+     */
+    @Override
+    public FileRegion regionFrom(long index, int maxLen)
+    {
+        return null;
+    }
+
+    @Override
+    public void removeFrom(long index)
+    {
+        if (index > lastIndex) {
+            return;
+        }
+
+        for (SharedPage page : pages) {
+            page.removeFrom(index);
+        }
+
+        while (!pages.isEmpty() && pages.peekLast().getPrevIndex() >= index) {
+            sharedLog.release(pages.removeLast());
+        }
+
+        SharedPage last = pages.peekLast();
+        SharedPage page = sharedLog.truncate(group, last, index);
+        if (page != last) {
+            pages.add(page);
+        }
+
+        lastIndex = index - 1;
+        lastTerm  = termOf(lastIndex);
+    }
+
+    @Override
+    public Entry get(long index)
+    {
+        if (index > lastIndex) {
+            return null;
+        }
+
+        for (SharedPage page : pages) {
+            Entry entry = page.getEntry(index);
+            if (entry != null) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get last index of the first page, last page is never compacted
+     * @return last index of the first page
+     */
+    @Override
+    public long getFirstPageEnd()
+    {
+        return pages.size() > 1 ? pages.peekFirst().getLastIndex() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public Buffer rawEntriesFrom(long index)
+    {
+        Buffer out = new Buffer();
+        Buffer curr = out;
+        for (SharedPage page : pages) {
+            curr = page.rawEntriesFrom(index, curr);
+        }
+
+        return out.next;
+    }
+}
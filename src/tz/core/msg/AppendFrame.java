@@ -0,0 +1,132 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encoded AppendReq shared by followers at the same position
+ *
+ * Header is encoded once and entries are the slices of the store, each
+ * follower gets an AppendReq with its own views of them. Frame counts the
+ * requests not written to sockets yet, store pages of the entries must not
+ * be unmapped until frame is released.
+ */
+public class AppendFrame
+{
+    private final AppendReq template;
+    private final Buffer entries;
+    private final FileRegion region;
+    private final long firstIndex;
+    private final long lastIndex;
+    private final AtomicInteger refs;
+
+    /**
+     * Create new AppendFrame
+     *
+     * @param template  request to encode, views copy its fields
+     * @param entries   raw entries, null for heartbeats
+     * @param lastIndex index of the last entry
+     */
+    public AppendFrame(AppendReq template, Buffer entries, long lastIndex)
+    {
+        this(template, entries, null, lastIndex);
+    }
+
+    /**
+     * Create new AppendFrame, entries are sent from the log file
+     *
+     * @param template request to encode, views copy its fields
+     * @param region   region of the log file
+     */
+    public AppendFrame(AppendReq template, FileRegion region)
+    {
+        this(template, null, region, region.getLastIndex());
+    }
+
+    private AppendFrame(AppendReq template, Buffer entries,
+                        FileRegion region, long lastIndex)
+    {
+        this.template   = template;
+        this.entries    = entries;
+        this.region     = region;
+        this.firstIndex = template.getPrevLogIndex() + 1;
+        this.lastIndex  = lastIndex;
+        this.refs       = new AtomicInteger();
+
+        template.setEntriesBuffer(entries);
+        template.setEntriesRegion(region);
+        template.encode();
+    }
+
+    /**
+     * Create a request for a follower, frame is retained until request is
+     * written or dropped
+     *
+     * @return request sharing the encoded frame
+     */
+    public AppendReq newReq()
+    {
+        refs.incrementAndGet();
+
+        Buffer head = null;
+        Buffer tail = null;
+        for (Buffer buf = entries; buf != null; buf = buf.next) {
+            Buffer view = buf.duplicate();
+            if (head == null) {
+                head = view;
+            }
+            else {
+                tail.next = view;
+            }
+            tail = view;
+        }
+
+        return new AppendReq(this, template, template.rawMsg.duplicate(), head,
+                             region != null ? region.duplicate() : null);
+    }
+
+    /**
+     * Request of the frame is written or dropped
+     */
+    void release()
+    {
+        refs.decrementAndGet();
+    }
+
+    /**
+     * Check if any request of the frame is waiting to be written
+     * @return true if all requests are written or dropped
+     */
+    public boolean isReleased()
+    {
+        return refs.get() == 0;
+    }
+
+    /**
+     * Check if frame carries entries
+     * @return false for heartbeats
+     */
+    public boolean hasEntries()
+    {
+        return entries != null || region != null;
+    }
+
+    /**
+     * Get index of the first entry of the frame
+     * @return first entry index
+     */
+    public long getFirstIndex()
+    {
+        return firstIndex;
+    }
+
+    /**
+     * Get index of the last entry of the frame
+     * @return last entry index
+     */
+    public long getLastIndex()
+    {
+        return lastIndex;
+    }
+}
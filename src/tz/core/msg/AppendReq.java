@@ -20,6 +20,8 @@ public class AppendReq extends Msg
     private long prevLogIndex;
     private long prevLogTerm;
     private long leaderCommit;
+    private long round;
+    private long rtt;
 
     //We use entries list when message is decoded (incoming)
     private transient List<Entry> entries;
@@ -27,6 +29,12 @@ public class AppendReq extends Msg
     //Raw buffer of the outgoing entries
     private Buffer entryBufs;
 
+    //Entries sent from the log file, for lagging followers
+    private FileRegion region;
+
+    //Shared encoded frame, null if request is encoded for one follower
+    private AppendFrame frame;
+
 
     /**
      * Create new AppendReq message
@@ -35,14 +43,19 @@ public class AppendReq extends Msg
      * @param prevLogIndex Previous log index
      * @param prevLogTerm  Previous log term
      * @param leaderCommit Leader commit
+     * @param round        Leader's broadcast round, echoed back in AppendResp
+     * @param rtt          Round trip time between leader and receiver
+     *                     measured by leader
      */
-    public AppendReq(long term, long prevLogIndex,
-                     long prevLogTerm, long leaderCommit)
+    public AppendReq(long term, long prevLogIndex, long prevLogTerm,
+                     long leaderCommit, long round, long rtt)
     {
         this.term         = term;
         this.prevLogIndex = prevLogIndex;
         this.prevLogTerm  = prevLogTerm;
         this.leaderCommit = leaderCommit;
+        this.round        = round;
+        this.rtt          = rtt;
         this.entries      = new ArrayList<>();
     }
 
@@ -62,6 +75,28 @@ public class AppendReq extends Msg
         rawReady = true;
     }
 
+    /**
+     * Create new AppendReq message on a shared frame
+     *
+     * @param frame     shared frame
+     * @param template  encoded request of the frame
+     * @param header    view of the encoded header
+     * @param entryBufs views of the entries
+     */
+    AppendReq(AppendFrame frame, AppendReq template, Buffer header,
+              Buffer entryBufs, FileRegion region)
+    {
+        this(template.term, template.prevLogIndex, template.prevLogTerm,
+             template.leaderCommit, template.round, template.rtt);
+
+        this.frame     = frame;
+        this.rawMsg    = header;
+        this.entryBufs = entryBufs;
+        this.region    = region;
+        this.length    = template.length;
+        this.rawReady  = true;
+    }
+
     /**
      * Set entry/entries data
      *
@@ -72,6 +107,25 @@ public class AppendReq extends Msg
         this.entryBufs = entryBufs;
     }
 
+    /**
+     * Set entries as a region of the log file
+     * @param region file region
+     */
+    public void setEntriesRegion(FileRegion region)
+    {
+        this.region = region;
+    }
+
+    /**
+     * Get raw encoded message, decoded entries are slices of it, offsets of
+     * the entries are positions in this buffer
+     * @return raw encoded message
+     */
+    public Buffer getRaw()
+    {
+        return rawMsg;
+    }
+
     /**
      * Get entries
      * @return entries of the message
@@ -117,6 +171,24 @@ public class AppendReq extends Msg
         return term;
     }
 
+    /**
+     * Get broadcast round of the leader
+     * @return broadcast round
+     */
+    public long getRound()
+    {
+        return round;
+    }
+
+    /**
+     * Get round trip time measured by leader
+     * @return round trip time in milliseconds
+     */
+    public long getRtt()
+    {
+        return rtt;
+    }
+
     /**
      * Encode message
      */
@@ -128,7 +200,9 @@ public class AppendReq extends Msg
             length = Encoder.byteLen(TYPE) + Encoder.varLongLen(term)
                                            + Encoder.varLongLen(prevLogIndex)
                                            + Encoder.varLongLen(prevLogTerm)
-                                           + Encoder.varLongLen(leaderCommit);
+                                           + Encoder.varLongLen(leaderCommit)
+                                           + Encoder.varLongLen(round)
+                                           + Encoder.varLongLen(rtt);
 
 
             Buffer buf = entryBufs;
@@ -137,6 +211,10 @@ public class AppendReq extends Msg
                 buf = buf.next;
             }
 
+            if (region != null) {
+                length += region.getCount();
+            }
+
             if (rawMsg == null) {
                 rawMsg = new Buffer(length + Encoder.varIntLen(length));
             }
@@ -148,6 +226,8 @@ public class AppendReq extends Msg
             rawMsg.putVarLong(prevLogIndex);
             rawMsg.putVarLong(prevLogTerm);
             rawMsg.putVarLong(leaderCommit);
+            rawMsg.putVarLong(round);
+            rawMsg.putVarLong(rtt);
 
             rawMsg.flip();
             rawReady = true;
@@ -166,6 +246,8 @@ public class AppendReq extends Msg
         prevLogIndex = rawMsg.getVarLong();
         prevLogTerm  = rawMsg.getVarLong();
         leaderCommit = rawMsg.getVarLong();
+        round        = rawMsg.getVarLong();
+        rtt          = rawMsg.getVarLong();
 
         long index = prevLogIndex + 1;
         while (rawMsg.remaining() > 0) {
@@ -184,8 +266,12 @@ public class AppendReq extends Msg
     @Override
     public void writeTo(Sock sock)
     {
+        //Header must be queued completely before entries and file bytes
         if (rawMsg.hasRemaining()) {
             sock.copy(rawMsg.backend());
+            if (rawMsg.hasRemaining()) {
+                return;
+            }
         }
 
         Buffer buf = entryBufs;
@@ -198,6 +284,10 @@ public class AppendReq extends Msg
                 return;
             }
         }
+
+        if (region != null && region.transferTo(sock)) {
+            region = null;
+        }
     }
 
     /**
@@ -207,7 +297,21 @@ public class AppendReq extends Msg
     @Override
     public boolean written()
     {
-        return (!rawMsg.hasRemaining() && entryBufs == null);
+        return (!rawMsg.hasRemaining() && entryBufs == null && region == null);
+    }
+
+    /**
+     * Release shared frame, request is written or dropped
+     */
+    @Override
+    public void release()
+    {
+        super.release();
+
+        if (frame != null) {
+            frame.release();
+            frame = null;
+        }
     }
 
     /**
@@ -220,6 +324,17 @@ public class AppendReq extends Msg
         handler.handleAppendReq(this);
     }
 
+    /**
+     * Heartbeats are control messages, requests carrying entries are not
+     * @return lane
+     */
+    @Override
+    public int getLane()
+    {
+        return entryBufs == null && region == null ? Msg.LANE_CONTROL :
+                                                     Msg.LANE_REPLICATION;
+    }
+
     @Override
     public int getType()
     {
@@ -241,6 +356,8 @@ public class AppendReq extends Msg
                .append("PrevLogIndex : ").append(prevLogIndex)  .append(", ")
                .append("PrevLogTerm : " ).append(prevLogTerm)   .append(", ")
                .append("LeaderCommit : ").append(leaderCommit)  .append(", ")
+               .append("Round : "       ).append(round)         .append(", ")
+               .append("Rtt : "         ).append(rtt)           .append(", ")
                .append("Entry count : " ).append(entries.size()).append("]]");
 
         return builder.toString();
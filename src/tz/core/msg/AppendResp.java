@@ -14,6 +14,7 @@ public class AppendResp extends Msg
     private long index;
     private long term;
     private boolean success;
+    private long round;
 
 
     /**
@@ -22,12 +23,14 @@ public class AppendResp extends Msg
      * @param index   last index (error or successful)
      * @param term    current term
      * @param success is successful
+     * @param round   round of the AppendReq this message responds to
      */
-    public AppendResp(long index, long term, boolean success)
+    public AppendResp(long index, long term, boolean success, long round)
     {
         this.index   = index;
         this.term    = term;
         this.success = success;
+        this.round   = round;
     }
 
     /**
@@ -72,6 +75,15 @@ public class AppendResp extends Msg
         return term;
     }
 
+    /**
+     * Get round of the acknowledged AppendReq
+     * @return round
+     */
+    public long getRound()
+    {
+        return round;
+    }
+
     /**
      * Encode message
      */
@@ -79,26 +91,38 @@ public class AppendResp extends Msg
     public void encode()
     {
         if (!rawReady) {
-            length = Encoder.byteLen(TYPE) + Encoder.varLongLen(term)
-                                             + Encoder.varLongLen(index)
-                                             + Encoder.booleanLen(success);
-
-            if (rawMsg == null) {
-                rawMsg = new Buffer(length + Encoder.varIntLen(length));
-            }
+            encodeRaw();
+        }
+    }
 
-            rawMsg.clear();
-            rawMsg.putVarInt(length);
-            rawMsg.put(AppendResp.TYPE);
-            rawMsg.putVarLong(index);
-            rawMsg.putVarLong(term);
-            rawMsg.putBoolean(success);
+    /**
+     * Compute encoded length
+     * @return total length including the length prefix
+     */
+    @Override
+    protected int frameLength()
+    {
+        length = Encoder.byteLen(TYPE) + Encoder.varLongLen(term)
+                                         + Encoder.varLongLen(index)
+                                         + Encoder.booleanLen(success)
+                                         + Encoder.varLongLen(round);
 
-            rawMsg.flip();
-            rawReady = true;
+        return length + Encoder.varIntLen(length);
+    }
 
-            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
-        }
+    /**
+     * Encode message into destination
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    @Override
+    protected void encodeFrame(Buffer dst)
+    {
+        dst.putVarInt(length);
+        dst.put(AppendResp.TYPE);
+        dst.putVarLong(index);
+        dst.putVarLong(term);
+        dst.putBoolean(success);
+        dst.putVarLong(round);
     }
 
     /**
@@ -110,6 +134,7 @@ public class AppendResp extends Msg
         index   = rawMsg.getVarLong();
         term    = rawMsg.getVarLong();
         success = rawMsg.getBoolean();
+        round   = rawMsg.getVarLong();
 
         rawMsg.rewind();
         rawReady = true;
@@ -137,7 +162,8 @@ public class AppendResp extends Msg
         builder.append(" [[AppendResp][")
                .append("Index : "  ).append(index)  .append(", ")
                .append("Term : "   ).append(term)   .append(", ")
-               .append("Success : ").append(success).append("]]");
+               .append("Success : ").append(success).append(", ")
+               .append("Round : "  ).append(round)  .append("]]");
 
         return builder.toString();
     }
@@ -0,0 +1,145 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+/**
+ * ClientBusy message
+ *
+ * Leader to clients, leader is overloaded and requests of the sequence range
+ * are not accepted. Client sends them again after retry interval.
+ */
+public class ClientBusy extends Msg
+{
+    public static final int TYPE = 0x1F;
+
+    private long sequence;
+    private int count;
+    private long retryAfter;
+
+    /**
+     * Create new ClientBusy message
+     *
+     * @param sequence   first rejected sequence
+     * @param count      count of rejected sequences
+     * @param retryAfter retry interval in milliseconds
+     */
+    public ClientBusy(long sequence, int count, long retryAfter)
+    {
+        this.sequence   = sequence;
+        this.count      = count;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Create new ClientBusy message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public ClientBusy(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    public int getCount()
+    {
+        return count;
+    }
+
+    public long getRetryAfter()
+    {
+        return retryAfter;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            length = Encoder.byteLen(ClientBusy.TYPE) +
+                     Encoder.varLongLen(sequence) +
+                     Encoder.varIntLen(count) +
+                     Encoder.varLongLen(retryAfter);
+
+            if (rawMsg == null) {
+                rawMsg = new Buffer(length + Encoder.varIntLen(length));
+            }
+
+            rawMsg.clear();
+            rawMsg.putVarInt(length);
+            rawMsg.put(ClientBusy.TYPE);
+            rawMsg.putVarLong(sequence);
+            rawMsg.putVarInt(count);
+            rawMsg.putVarLong(retryAfter);
+            rawMsg.flip();
+            rawReady = true;
+
+            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        sequence   = rawMsg.getVarLong();
+        count      = rawMsg.getVarInt();
+        retryAfter = rawMsg.getVarLong();
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleClientBusy(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[ClientBusy][")
+               .append("Total Size : " ).append(length)    .append(", ")
+               .append("Sequence : "   ).append(sequence)  .append(", ")
+               .append("Count : "      ).append(count)     .append(", ")
+               .append("Retry after : ").append(retryAfter).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_CLIENT;
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
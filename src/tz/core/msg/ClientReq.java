@@ -183,6 +183,12 @@ public class ClientReq extends Msg
         return builder.toString();
     }
 
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_CLIENT;
+    }
+
     @Override
     public int getType()
     {
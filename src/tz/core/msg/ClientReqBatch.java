@@ -0,0 +1,217 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ClientReqBatch message
+ *
+ * Clients to leader, many commands with consecutive sequences in one
+ * message. Commands share state id and acknowledge, receiver handles them
+ * as regular ClientReq messages.
+ */
+public class ClientReqBatch extends Msg
+{
+    public static final int TYPE = 0x1D;
+
+    private int stateId;
+    private long sequence;
+    private long acknowledge;
+    private int dataLen;
+    private final List<ClientReq> requests;
+
+    /**
+     * Create new ClientReqBatch message
+     *
+     * @param first first request of the batch
+     */
+    public ClientReqBatch(ClientReq first)
+    {
+        this.stateId     = first.getStateId();
+        this.sequence    = first.getSequence();
+        this.acknowledge = first.getAcknowledge();
+
+        requests = new ArrayList<>();
+        add(first);
+    }
+
+    /**
+     * Create new ClientReqBatch message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public ClientReqBatch(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        requests = new ArrayList<>();
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Check if request can be added to the batch
+     *
+     * @param req     request
+     * @param maxSize max encoded size of commands of the batch
+     * @return        true if request is the next sequence of the same state
+     */
+    public boolean accepts(ClientReq req, int maxSize)
+    {
+        return req.getStateId() == stateId &&
+               req.getSequence() == sequence + requests.size() &&
+               dataLen + req.getData().remaining() <= maxSize;
+    }
+
+    /**
+     * Add a request, request must be accepted by the batch
+     * @param req request
+     */
+    public void add(ClientReq req)
+    {
+        requests.add(req);
+        acknowledge = Math.max(acknowledge, req.getAcknowledge());
+        dataLen    += req.getData().remaining();
+    }
+
+    /**
+     * Get requests
+     * @return requests
+     */
+    public List<ClientReq> getRequests()
+    {
+        return requests;
+    }
+
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    public long getAcknowledge()
+    {
+        return acknowledge;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            encodeRaw();
+        }
+    }
+
+    /**
+     * Compute encoded length
+     * @return total length including the length prefix
+     */
+    @Override
+    protected int frameLength()
+    {
+        length = Encoder.byteLen(ClientReqBatch.TYPE) +
+                 Encoder.varIntLen(stateId) +
+                 Encoder.varLongLen(sequence) +
+                 Encoder.varLongLen(acknowledge) +
+                 Encoder.varIntLen(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            final ClientReq req = requests.get(i);
+            final int len = req.getData().remaining();
+            length += Encoder.varIntLen(len) + len;
+        }
+
+        return length + Encoder.varIntLen(length);
+    }
+
+    /**
+     * Encode message into destination
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    @Override
+    protected void encodeFrame(Buffer dst)
+    {
+        dst.putVarInt(length);
+        dst.put(ClientReqBatch.TYPE);
+        dst.putVarInt(stateId);
+        dst.putVarLong(sequence);
+        dst.putVarLong(acknowledge);
+        dst.putVarInt(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            final ClientReq req = requests.get(i);
+            //Request is sent alone if client reconnects, keep its data
+            putData(dst, req.getData());
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        stateId     = rawMsg.getVarInt();
+        sequence    = rawMsg.getVarLong();
+        acknowledge = rawMsg.getVarLong();
+
+        final int count = rawMsg.getVarInt();
+
+        for (int i = 0; i < count; i++) {
+            final int len = rawMsg.getVarInt();
+            requests.add(new ClientReq(stateId, sequence + i, acknowledge,
+                                       rawMsg.getByteBuffer(len)));
+        }
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle message callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleClientReqBatch(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[ClientReqBatch][")
+               .append("Total Size : " ).append(length)         .append(", ")
+               .append("State ID : "   ).append(stateId)        .append(", ")
+               .append("Sequence : "   ).append(sequence)       .append(", ")
+               .append("Acknowledge : ").append(acknowledge)    .append(", ")
+               .append("Count : "      ).append(requests.size()).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_CLIENT;
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
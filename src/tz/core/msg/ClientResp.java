@@ -58,6 +58,11 @@ public class ClientResp extends Msg
         return sequence;
     }
 
+    public boolean isSuccess()
+    {
+        return result;
+    }
+
     /**
      * Encode message
      */
@@ -65,21 +70,15 @@ public class ClientResp extends Msg
     public void encode()
     {
         if (!rawReady) {
-            int headerLen = Encoder.byteLen(TYPE) + Encoder.longLen(sequence)
-                                                  + Encoder.booleanLen(result);
-
-            length = headerLen + data.remaining();
+            //Only the header is encoded, data is copied after it
+            final int headerLen = frameLength() - data.remaining();
 
-            headerLen += Encoder.varIntLen(length);
             if (rawMsg == null) {
                 rawMsg = new Buffer(headerLen);
             }
 
             rawMsg.clear();
-            rawMsg.putVarInt(length);
-            rawMsg.put(ClientResp.TYPE);
-            rawMsg.putLong(sequence);
-            rawMsg.putBoolean(result);
+            encodeHeader(rawMsg);
             rawMsg.flip();
             rawReady = true;
 
@@ -87,6 +86,46 @@ public class ClientResp extends Msg
         }
     }
 
+    /**
+     * Compute encoded length
+     * @return total length including the length prefix
+     */
+    @Override
+    protected int frameLength()
+    {
+        length = Encoder.byteLen(TYPE) + Encoder.longLen(sequence)
+                                       + Encoder.booleanLen(result)
+                                       + data.remaining();
+
+        return length + Encoder.varIntLen(length);
+    }
+
+    /**
+     * Encode message into destination, position of data is not changed
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    @Override
+    protected void encodeFrame(Buffer dst)
+    {
+        final int pos = data.position();
+
+        encodeHeader(dst);
+        dst.put(data);
+        data.position(pos);
+    }
+
+    /**
+     * Encode header, length must be computed before
+     * @param dst destination
+     */
+    private void encodeHeader(Buffer dst)
+    {
+        dst.putVarInt(length);
+        dst.put(ClientResp.TYPE);
+        dst.putLong(sequence);
+        dst.putBoolean(result);
+    }
+
     /**
      * Decode message
      */
@@ -155,6 +194,12 @@ public class ClientResp extends Msg
         return builder.toString();
     }
 
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_CLIENT;
+    }
+
     @Override
     public int getType()
     {
@@ -0,0 +1,171 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ClientRespBatch message
+ *
+ * Leader to clients, responses of a client completed in the same iteration
+ * in one message. Receiver handles them as regular ClientResp messages.
+ */
+public class ClientRespBatch extends Msg
+{
+    public static final int TYPE = 0x1E;
+
+    private final List<ClientResp> responses;
+
+    /**
+     * Create new ClientRespBatch message
+     */
+    public ClientRespBatch()
+    {
+        responses = new ArrayList<>();
+    }
+
+    /**
+     * Create new ClientRespBatch message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public ClientRespBatch(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        responses = new ArrayList<>();
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Add a response
+     * @param resp response
+     */
+    public void add(ClientResp resp)
+    {
+        responses.add(resp);
+    }
+
+    /**
+     * Get responses
+     * @return responses
+     */
+    public List<ClientResp> getResponses()
+    {
+        return responses;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            encodeRaw();
+        }
+    }
+
+    /**
+     * Compute encoded length
+     * @return total length including the length prefix
+     */
+    @Override
+    protected int frameLength()
+    {
+        length = Encoder.byteLen(ClientRespBatch.TYPE) +
+                 Encoder.varIntLen(responses.size());
+
+        for (int i = 0; i < responses.size(); i++) {
+            final ClientResp resp = responses.get(i);
+            final int len = resp.getData().remaining();
+            length += Encoder.varLongLen(resp.getSequence()) +
+                      Encoder.booleanLen(resp.isSuccess()) +
+                      Encoder.varIntLen(len) + len;
+        }
+
+        return length + Encoder.varIntLen(length);
+    }
+
+    /**
+     * Encode message into destination
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    @Override
+    protected void encodeFrame(Buffer dst)
+    {
+        dst.putVarInt(length);
+        dst.put(ClientRespBatch.TYPE);
+        dst.putVarInt(responses.size());
+
+        for (int i = 0; i < responses.size(); i++) {
+            final ClientResp resp = responses.get(i);
+            dst.putVarLong(resp.getSequence());
+            dst.putBoolean(resp.isSuccess());
+            putData(dst, resp.getData());
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        final int count = rawMsg.getVarInt();
+
+        for (int i = 0; i < count; i++) {
+            final long sequence  = rawMsg.getVarLong();
+            final boolean result = rawMsg.getBoolean();
+            final int len        = rawMsg.getVarInt();
+
+            responses.add(new ClientResp(sequence, result, rawMsg.getByteBuffer(len)));
+        }
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleClientRespBatch(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[ClientRespBatch][")
+               .append("Total Size : ").append(length)          .append(", ")
+               .append("Count : "     ).append(responses.size()).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_CLIENT;
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
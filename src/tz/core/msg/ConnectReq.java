@@ -15,15 +15,32 @@ public class ConnectReq extends Msg
     private String clusterName;
     private String name;
     private boolean client;
+    private boolean readOnly;
 
     /**
      * Create new ConnectReq message
      */
     public ConnectReq(String clusterName, String name, boolean client)
+    {
+        this(clusterName, name, client, false);
+    }
+
+    /**
+     * Create new ConnectReq message
+     *
+     * @param clusterName cluster name
+     * @param name        node name
+     * @param client      true if sender is a client
+     * @param readOnly    true if client sends queries only, any peer
+     *                    can accept read only clients
+     */
+    public ConnectReq(String clusterName, String name,
+                      boolean client, boolean readOnly)
     {
         this.clusterName = clusterName;
         this.name        = name;
         this.client      = client;
+        this.readOnly    = readOnly;
     }
 
     /**
@@ -46,6 +63,11 @@ public class ConnectReq extends Msg
         return client;
     }
 
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
     public String getClusterName()
     {
         return clusterName;
@@ -66,7 +88,8 @@ public class ConnectReq extends Msg
             length = Encoder.byteLen(ConnectReq.TYPE) +
                      Encoder.stringLen(clusterName) +
                      Encoder.stringLen(name) +
-                     Encoder.booleanLen(client);
+                     Encoder.booleanLen(client) +
+                     Encoder.booleanLen(readOnly);
 
 
             if (rawMsg == null) {
@@ -79,6 +102,7 @@ public class ConnectReq extends Msg
             rawMsg.putString(clusterName);
             rawMsg.putString(name);
             rawMsg.putBoolean(client);
+            rawMsg.putBoolean(readOnly);
 
             rawMsg.flip();
             rawReady = true;
@@ -95,7 +119,8 @@ public class ConnectReq extends Msg
     {
         clusterName = rawMsg.getString();
         name        = rawMsg.getString();
-        client = rawMsg.getBoolean();
+        client      = rawMsg.getBoolean();
+        readOnly    = rawMsg.getBoolean();
 
         rawMsg.rewind();
         rawReady = true;
@@ -123,7 +148,8 @@ public class ConnectReq extends Msg
         builder.append(" [[ConnectReq][")
                .append("Cluster Name : ").append(clusterName).append(", ")
                .append("Name: "         ).append(name)       .append(", ")
-               .append("Is client : "   ).append(client)     .append("]]");
+               .append("Is client : "   ).append(client)     .append(", ")
+               .append("Read only : "   ).append(readOnly)   .append("]]");
 
         return builder.toString();
     }
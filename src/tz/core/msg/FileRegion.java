@@ -0,0 +1,75 @@
+package tz.core.msg;
+
+import tz.base.transport.sock.Sock;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * Region of a log file holding encoded entries
+ *
+ * Entries of lagging followers are sent from the file with sendfile instead
+ * of mapped buffers, so large catch up transfers don't fault file pages into
+ * user space.
+ */
+public class FileRegion
+{
+    private final FileChannel channel;
+    private final long lastIndex;
+    private long position;
+    private long count;
+
+    /**
+     * Create new FileRegion
+     *
+     * @param channel   log file
+     * @param position  offset of the first entry in the file
+     * @param count     byte count of the entries
+     * @param lastIndex index of the last entry in the region
+     */
+    public FileRegion(FileChannel channel, long position, long count, long lastIndex)
+    {
+        this.channel   = channel;
+        this.position  = position;
+        this.count     = count;
+        this.lastIndex = lastIndex;
+    }
+
+    /**
+     * Get a copy with its own transfer position
+     * @return copy of the region
+     */
+    public FileRegion duplicate()
+    {
+        return new FileRegion(channel, position, count, lastIndex);
+    }
+
+    /**
+     * Transfer region to socket
+     *
+     * @param sock destination
+     * @return     true if all bytes are transferred
+     */
+    public boolean transferTo(Sock sock)
+    {
+        final long n = sock.transfer(channel, position, count);
+
+        position += n;
+        count    -= n;
+
+        return count == 0;
+    }
+
+    /**
+     * Get remaining byte count
+     * @return byte count
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getLastIndex()
+    {
+        return lastIndex;
+    }
+}
@@ -0,0 +1,140 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+/**
+ * GroupSwitch message
+ *
+ * Header of the following messages on a connection shared by raft groups,
+ * messages belong to the group of the last GroupSwitch. Connections switch
+ * group only when it changes, so a connection of a single group never sends
+ * this message.
+ */
+public class GroupSwitch extends Msg
+{
+    public static final int TYPE = 0x1B;
+
+    private int target;
+
+    /**
+     * Create new GroupSwitch message
+     * @param target group id of the following messages
+     */
+    public GroupSwitch(int target)
+    {
+        this.target = target;
+    }
+
+    /**
+     * Create new GroupSwitch message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public GroupSwitch(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Get group id of the following messages
+     * @return group id
+     */
+    public int getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * Reuse message for another group, connections keep a single instance
+     * @param target group id of the following messages
+     */
+    public void setTarget(int target)
+    {
+        this.target = target;
+        rawReady    = false;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            encodeRaw();
+        }
+    }
+
+    /**
+     * Compute encoded length
+     * @return total length including the length prefix
+     */
+    @Override
+    protected int frameLength()
+    {
+        //Fixed length int, message must not be shorter than MIN_MSG_SIZE
+        length = Encoder.byteLen(GroupSwitch.TYPE) + Encoder.intLen(target);
+
+        return length + Encoder.varIntLen(length);
+    }
+
+    /**
+     * Encode message into destination
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    @Override
+    protected void encodeFrame(Buffer dst)
+    {
+        dst.putVarInt(length);
+        dst.put(GroupSwitch.TYPE);
+        dst.putInt(target);
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        target = rawMsg.getInt();
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleGroupSwitch(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[GroupSwitch][")
+               .append("Target : ").append(target).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
@@ -0,0 +1,177 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HeartbeatBatch message
+ *
+ * Leaders of raft groups sharing a connection send their heartbeats in one
+ * message. Each heartbeat is an AppendReq without entries, receiver
+ * dispatches them to the groups as regular AppendReq messages.
+ */
+public class HeartbeatBatch extends Msg
+{
+    public static final int TYPE = 0x1C;
+
+    private final List<AppendReq> heartbeats;
+
+    /**
+     * Create new HeartbeatBatch message
+     */
+    public HeartbeatBatch()
+    {
+        heartbeats = new ArrayList<>();
+    }
+
+    /**
+     * Create new HeartbeatBatch message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public HeartbeatBatch(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        heartbeats = new ArrayList<>();
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Add a heartbeat
+     * @param req AppendReq without entries, group must be set
+     */
+    public void add(AppendReq req)
+    {
+        heartbeats.add(req);
+    }
+
+    /**
+     * Get heartbeats
+     * @return heartbeats
+     */
+    public List<AppendReq> getHeartbeats()
+    {
+        return heartbeats;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            encodeRaw();
+        }
+    }
+
+    /**
+     * Compute encoded length
+     * @return total length including the length prefix
+     */
+    @Override
+    protected int frameLength()
+    {
+        length = Encoder.byteLen(HeartbeatBatch.TYPE) +
+                 Encoder.varIntLen(heartbeats.size());
+
+        for (int i = 0; i < heartbeats.size(); i++) {
+            final AppendReq req = heartbeats.get(i);
+            length += Encoder.varIntLen(req.getGroup()) +
+                      Encoder.varLongLen(req.getTerm()) +
+                      Encoder.varLongLen(req.getPrevLogIndex()) +
+                      Encoder.varLongLen(req.getPrevLogTerm()) +
+                      Encoder.varLongLen(req.getLeaderCommit()) +
+                      Encoder.varLongLen(req.getRound()) +
+                      Encoder.varLongLen(req.getRtt());
+        }
+
+        return length + Encoder.varIntLen(length);
+    }
+
+    /**
+     * Encode message into destination
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    @Override
+    protected void encodeFrame(Buffer dst)
+    {
+        dst.putVarInt(length);
+        dst.put(HeartbeatBatch.TYPE);
+        dst.putVarInt(heartbeats.size());
+
+        for (int i = 0; i < heartbeats.size(); i++) {
+            final AppendReq req = heartbeats.get(i);
+            dst.putVarInt(req.getGroup());
+            dst.putVarLong(req.getTerm());
+            dst.putVarLong(req.getPrevLogIndex());
+            dst.putVarLong(req.getPrevLogTerm());
+            dst.putVarLong(req.getLeaderCommit());
+            dst.putVarLong(req.getRound());
+            dst.putVarLong(req.getRtt());
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        final int count = rawMsg.getVarInt();
+
+        for (int i = 0; i < count; i++) {
+            final int group = rawMsg.getVarInt();
+            AppendReq req   = new AppendReq(rawMsg.getVarLong(),
+                                            rawMsg.getVarLong(),
+                                            rawMsg.getVarLong(),
+                                            rawMsg.getVarLong(),
+                                            rawMsg.getVarLong(),
+                                            rawMsg.getVarLong());
+            req.setGroup(group);
+            heartbeats.add(req);
+        }
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleHeartbeatBatch(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[HeartbeatBatch][")
+               .append("Total Size : ").append(length)           .append(", ")
+               .append("Count : "     ).append(heartbeats.size()).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
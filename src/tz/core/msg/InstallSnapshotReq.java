@@ -148,6 +148,12 @@ public class InstallSnapshotReq extends Msg
         return builder.toString();
     }
 
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_BULK;
+    }
+
     @Override
     public int getType()
     {
@@ -1,6 +1,7 @@
 package tz.core.msg;
 
 import tz.base.common.Buffer;
+import tz.base.common.PooledBuffer;
 import tz.base.transport.sock.Sock;
 
 import java.nio.ByteBuffer;
@@ -15,10 +16,24 @@ public abstract class Msg
     public static final int MSG_TYPE_SIZE = 1;
     public static final int MIN_MSG_SIZE = Encoder.MAX_VAR_INT_LEN;
 
+    //Priority lanes of outgoing messages, lower lanes are written first
+    public static final int LANE_CONTROL     = 0;
+    public static final int LANE_REPLICATION = 1;
+    public static final int LANE_CLIENT      = 2;
+    public static final int LANE_BULK        = 3;
+    public static final int LANE_COUNT       = 4;
+
     protected int length;
     protected Buffer rawMsg;
     protected boolean rawReady;
 
+    //Raft group of the message, not encoded, connections carry it with
+    //GroupSwitch messages
+    protected int group;
+
+    //Receive buffer the message is decoded from in place, null if copied
+    private PooledBuffer source;
+
     /**
      * Create new Msg
      */
@@ -44,6 +59,84 @@ public abstract class Msg
         return length;
     }
 
+    /**
+     * Get raft group of the message
+     * @return group id
+     */
+    public int getGroup()
+    {
+        return group;
+    }
+
+    /**
+     * Set raft group of the message
+     * @param group group id
+     */
+    public void setGroup(int group)
+    {
+        this.group = group;
+    }
+
+    /**
+     * Get priority lane of the message, votes, heartbeats and responses of
+     * the consensus are control messages
+     * @return lane
+     */
+    public int getLane()
+    {
+        return LANE_CONTROL;
+    }
+
+    /**
+     * Release resources shared with other messages, called once message is
+     * written or dropped. Received messages release their receive buffer,
+     * slices of the message must not be used afterwards.
+     */
+    public void release()
+    {
+        if (source != null) {
+            source.release();
+            source = null;
+        }
+    }
+
+    /**
+     * Get length of the next encoded message in the buffer
+     *
+     * @param buf received data, position is not changed
+     * @return    total length including the length prefix, -1 if length
+     *            prefix is not complete yet
+     */
+    public static int frameLength(ByteBuffer buf)
+    {
+        if (buf.remaining() < MIN_MSG_SIZE) {
+            return -1;
+        }
+
+        Buffer header = new Buffer(buf.duplicate());
+        final int len = header.getVarInt();
+
+        return len + header.position() - buf.position();
+    }
+
+    /**
+     * Decode a message in place, message refers to the buffer until it is
+     * released
+     *
+     * @param buf    buffer holding exactly one encoded message
+     * @param source pooled buffer behind, a reference is taken
+     * @return       decoded message
+     */
+    public static Msg create(ByteBuffer buf, PooledBuffer source)
+    {
+        source.retain();
+
+        Msg msg = create(new Buffer(buf));
+        msg.source = source;
+
+        return msg;
+    }
+
     /**
      * Decode and create message from a buffer
      *
@@ -86,6 +179,26 @@ public abstract class Msg
                 return new InstallSnapshotReq(buf, len);
             case InstallSnapshotResp.TYPE:
                 return new InstallSnapshotResp(buf, len);
+            case QueryReq.TYPE:
+                return new QueryReq(buf, len);
+            case QueryResp.TYPE:
+                return new QueryResp(buf, len);
+            case ReadIndexReq.TYPE:
+                return new ReadIndexReq(buf, len);
+            case ReadIndexResp.TYPE:
+                return new ReadIndexResp(buf, len);
+            case TimeoutNow.TYPE:
+                return new TimeoutNow(buf, len);
+            case GroupSwitch.TYPE:
+                return new GroupSwitch(buf, len);
+            case HeartbeatBatch.TYPE:
+                return new HeartbeatBatch(buf, len);
+            case ClientReqBatch.TYPE:
+                return new ClientReqBatch(buf, len);
+            case ClientRespBatch.TYPE:
+                return new ClientRespBatch(buf, len);
+            case ClientBusy.TYPE:
+                return new ClientBusy(buf, len);
             default:
                 throw new UnsupportedOperationException("Unknown msg type : " + type);
         }
@@ -118,6 +231,91 @@ public abstract class Msg
         sock.copy(rawMsg.backend());
     }
 
+    /**
+     * Encode message straight into the send buffer of the sock, no buffer is
+     * allocated for the message. Messages which can't tell their length up
+     * front, or don't fit into the send buffer, fall back to encode() and
+     * writeTo()
+     *
+     * @param sock outgoing sock
+     * @return     true if the whole message is written to the sock
+     */
+    public boolean encodeTo(Sock sock)
+    {
+        if (rawReady) {
+            return false;
+        }
+
+        final int len = frameLength();
+        if (len == -1) {
+            return false;
+        }
+
+        Buffer dst = sock.frame(len);
+        if (dst == null) {
+            return false;
+        }
+
+        encodeFrame(dst);
+        sock.commit(len);
+
+        return true;
+    }
+
+    /**
+     * Compute encoded length, messages implementing this must implement
+     * encodeFrame() as well
+     *
+     * @return total length including the length prefix, -1 if not supported
+     */
+    protected int frameLength()
+    {
+        return -1;
+    }
+
+    /**
+     * Encode message into destination
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    protected void encodeFrame(Buffer dst)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Encode message into rawMsg with encodeFrame(), rawMsg is allocated
+     * once and reused
+     */
+    protected void encodeRaw()
+    {
+        final int len = frameLength();
+
+        if (rawMsg == null) {
+            rawMsg = new Buffer(len);
+        }
+
+        rawMsg.clear();
+        encodeFrame(rawMsg);
+        rawMsg.flip();
+        rawReady = true;
+
+        assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+    }
+
+    /**
+     * Put length prefixed data, position of data is not changed
+     *
+     * @param dst  destination
+     * @param data data to copy
+     */
+    protected static void putData(Buffer dst, ByteBuffer data)
+    {
+        final int pos = data.position();
+
+        dst.putByteBuffer(data);
+        data.position(pos);
+    }
+
     /**
      * Encode message
      */
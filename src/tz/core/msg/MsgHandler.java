@@ -119,4 +119,94 @@ public interface MsgHandler
     {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Handle QueryReq message
+     * @param msg QueryReq message
+     */
+    default void handleQueryReq(QueryReq msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle QueryResp message
+     * @param msg QueryResp message
+     */
+    default void handleQueryResp(QueryResp msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle ReadIndexReq message
+     * @param msg ReadIndexReq message
+     */
+    default void handleReadIndexReq(ReadIndexReq msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle ReadIndexResp message
+     * @param msg ReadIndexResp message
+     */
+    default void handleReadIndexResp(ReadIndexResp msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle TimeoutNow message
+     * @param msg TimeoutNow message
+     */
+    default void handleTimeoutNow(TimeoutNow msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle GroupSwitch message
+     * @param msg GroupSwitch message
+     */
+    default void handleGroupSwitch(GroupSwitch msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle HeartbeatBatch message
+     * @param msg HeartbeatBatch message
+     */
+    default void handleHeartbeatBatch(HeartbeatBatch msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle ClientReqBatch message
+     * @param msg ClientReqBatch message
+     */
+    default void handleClientReqBatch(ClientReqBatch msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle ClientRespBatch message
+     * @param msg ClientRespBatch message
+     */
+    default void handleClientRespBatch(ClientRespBatch msg)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Handle ClientBusy message
+     * @param msg ClientBusy message
+     */
+    default void handleClientBusy(ClientBusy msg)
+    {
+        throw new UnsupportedOperationException();
+    }
 }
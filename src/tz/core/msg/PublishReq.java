@@ -54,6 +54,12 @@ public class PublishReq extends Msg
         handler.handlePublishReq(this);
     }
 
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_CLIENT;
+    }
+
     @Override
     public int getType()
     {
@@ -0,0 +1,168 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+import tz.base.transport.sock.Sock;
+
+import java.nio.ByteBuffer;
+
+/**
+ * QueryReq message
+ *
+ * Clients to peers, read only query. Queries are not written to the log, so
+ * they have their own id space, independent of client sequences.
+ */
+public class QueryReq extends Msg
+{
+    public static final int TYPE = 0x16;
+
+    private long id;
+    private ByteBuffer data;
+
+    /**
+     * Create new QueryReq message
+     *
+     * @param id   query id of the client
+     * @param data raw query
+     */
+    public QueryReq(long id, ByteBuffer data)
+    {
+        this.id   = id;
+        this.data = data;
+    }
+
+    /**
+     * Create new QueryReq message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public QueryReq(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    public void rewind()
+    {
+        rawMsg.rewind();
+        data.rewind();
+    }
+
+    /**
+     * Get query id
+     * @return query id
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Get raw query
+     * @return raw query
+     */
+    public ByteBuffer getData()
+    {
+        return data;
+    }
+
+    @Override
+    public void writeTo(Sock sock)
+    {
+        if (rawMsg.hasRemaining()) {
+            sock.copy(rawMsg.backend());
+        }
+
+        if (data.hasRemaining()) {
+            sock.copy(data);
+        }
+    }
+
+    @Override
+    public boolean written()
+    {
+        return (!rawMsg.hasRemaining() && !data.hasRemaining());
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            //Fixed length id, message must not be shorter than MIN_MSG_SIZE
+            int headerLen = Encoder.byteLen(TYPE) + Encoder.longLen(id);
+
+            length = headerLen + data.remaining();
+
+            headerLen += Encoder.varIntLen(length);
+            if (rawMsg == null) {
+                rawMsg = new Buffer(headerLen);
+            }
+
+            rawMsg.clear();
+            rawMsg.putVarInt(length);
+            rawMsg.put(QueryReq.TYPE);
+            rawMsg.putLong(id);
+            rawMsg.flip();
+            rawReady = true;
+
+            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        id   = rawMsg.getLong();
+        data = rawMsg.getByteBuffer(rawMsg.remaining());
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle message callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleQueryReq(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[QueryReq][")
+               .append("Total Size : ").append(length).append(", ")
+               .append("Id : "        ).append(id)    .append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_CLIENT;
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
@@ -0,0 +1,174 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+import tz.base.transport.sock.Sock;
+
+import java.nio.ByteBuffer;
+
+/**
+ * QueryResp message
+ *
+ * Peers to clients, result of a read only query
+ */
+public class QueryResp extends Msg
+{
+    public static final int TYPE = 0x17;
+
+    private long id;
+    private boolean result;
+    private ByteBuffer data;
+
+    /**
+     * Create new QueryResp message
+     *
+     * @param id     query id
+     * @param result is successful
+     * @param data   response
+     */
+    public QueryResp(long id, boolean result, ByteBuffer data)
+    {
+        this.id     = id;
+        this.result = result;
+        this.data   = data;
+    }
+
+    /**
+     * Create new QueryResp message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public QueryResp(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public boolean isSuccess()
+    {
+        return result;
+    }
+
+    public ByteBuffer getData()
+    {
+        return data;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            //Fixed length id, message must not be shorter than MIN_MSG_SIZE
+            int headerLen = Encoder.byteLen(TYPE) + Encoder.longLen(id)
+                                                  + Encoder.booleanLen(result);
+
+            length = headerLen + data.remaining();
+
+            headerLen += Encoder.varIntLen(length);
+            if (rawMsg == null) {
+                rawMsg = new Buffer(headerLen);
+            }
+
+            rawMsg.clear();
+            rawMsg.putVarInt(length);
+            rawMsg.put(QueryResp.TYPE);
+            rawMsg.putLong(id);
+            rawMsg.putBoolean(result);
+            rawMsg.flip();
+            rawReady = true;
+
+            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        id     = rawMsg.getLong();
+        result = rawMsg.getBoolean();
+        data   = rawMsg.getByteBuffer(rawMsg.remaining());
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Copy raw encoded message to sock's outgoing buffer
+     * @param sock outgoing sock
+     */
+    @Override
+    public void writeTo(Sock sock)
+    {
+        if (rawMsg.hasRemaining()) {
+            sock.copy(rawMsg.backend());
+        }
+
+        if (data.hasRemaining()) {
+            sock.copy(data);
+        }
+    }
+
+    /**
+     * If raw message is written to destination(socket buffers mostly)
+     * @return true if all bytes written
+     */
+    @Override
+    public boolean written()
+    {
+        return (!rawMsg.hasRemaining() && !data.hasRemaining());
+    }
+
+    /**
+     * Handle callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleQueryResp(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[QueryResp][")
+               .append("Total Size : ").append(length)          .append(", ")
+               .append("Id : "        ).append(id)              .append(", ")
+               .append("Result : "    ).append(result)          .append(", ")
+               .append("Data size : " ).append(data.remaining()).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getLane()
+    {
+        return Msg.LANE_CLIENT;
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
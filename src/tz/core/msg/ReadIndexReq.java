@@ -0,0 +1,118 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+/**
+ * ReadIndexReq message
+ *
+ * Followers to leader, asks for the commit index to serve read only queries
+ * locally. Leader answers after a quorum confirms its leadership.
+ */
+public class ReadIndexReq extends Msg
+{
+    public static final int TYPE = 0x18;
+
+    private long id;
+
+    /**
+     * Create new ReadIndexReq message
+     * @param id request id of the follower
+     */
+    public ReadIndexReq(long id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * Create new ReadIndexReq message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public ReadIndexReq(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Get request id
+     * @return request id
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            //Fixed length id, message must not be shorter than MIN_MSG_SIZE
+            length = Encoder.byteLen(ReadIndexReq.TYPE) + Encoder.longLen(id);
+
+            if (rawMsg == null) {
+                rawMsg = new Buffer(length + Encoder.varIntLen(length));
+            }
+
+            rawMsg.clear();
+            rawMsg.putVarInt(length);
+            rawMsg.put(ReadIndexReq.TYPE);
+            rawMsg.putLong(id);
+
+            rawMsg.flip();
+            rawReady = true;
+
+            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        id = rawMsg.getLong();
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleReadIndexReq(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[ReadIndexReq][")
+               .append("Id : ").append(id).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
@@ -0,0 +1,151 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+/**
+ * ReadIndexResp message
+ *
+ * Leader to followers, commit index which is safe to serve reads once
+ * follower applies up to it
+ */
+public class ReadIndexResp extends Msg
+{
+    public static final int TYPE = 0x19;
+
+    private long id;
+    private long index;
+    private boolean success;
+
+    /**
+     * Create new ReadIndexResp message
+     *
+     * @param id      request id of the follower
+     * @param index   read index
+     * @param success false if sender is not the leader anymore
+     */
+    public ReadIndexResp(long id, long index, boolean success)
+    {
+        this.id      = id;
+        this.index   = index;
+        this.success = success;
+    }
+
+    /**
+     * Create new ReadIndexResp message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public ReadIndexResp(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Get request id
+     * @return request id
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Get read index
+     * @return read index
+     */
+    public long getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Is successful
+     * @return is successful
+     */
+    public boolean isSuccess()
+    {
+        return success;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            length = Encoder.byteLen(ReadIndexResp.TYPE) +
+                     Encoder.varLongLen(id) +
+                     Encoder.varLongLen(index) +
+                     Encoder.booleanLen(success);
+
+            if (rawMsg == null) {
+                rawMsg = new Buffer(length + Encoder.varIntLen(length));
+            }
+
+            rawMsg.clear();
+            rawMsg.putVarInt(length);
+            rawMsg.put(ReadIndexResp.TYPE);
+            rawMsg.putVarLong(id);
+            rawMsg.putVarLong(index);
+            rawMsg.putBoolean(success);
+
+            rawMsg.flip();
+            rawReady = true;
+
+            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        id      = rawMsg.getVarLong();
+        index   = rawMsg.getVarLong();
+        success = rawMsg.getBoolean();
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleReadIndexResp(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[ReadIndexResp][")
+               .append("Id : "     ).append(id)     .append(", ")
+               .append("Index : "  ).append(index)  .append(", ")
+               .append("Success : ").append(success).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
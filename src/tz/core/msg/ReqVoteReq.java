@@ -49,31 +49,41 @@ public class ReqVoteReq extends Msg
     public void encode()
     {
         if (!rawReady) {
-            length = Encoder.byteLen(ReqVoteReq.TYPE) +
-                     Encoder.varLongLen(term) +
-                     Encoder.varLongLen(lastLogIndex) +
-                     Encoder.varLongLen(lastLogTerm) +
-                     Encoder.booleanLen(leaderTransfer);
-
-            if (rawMsg == null) {
-                rawMsg = new Buffer(length + Encoder.varIntLen(length));
-            }
-
-            rawMsg.clear();
-            rawMsg.putVarInt(length);
-            rawMsg.put(ReqVoteReq.TYPE);
-            rawMsg.putVarLong(term);
-            rawMsg.putVarLong(lastLogIndex);
-            rawMsg.putVarLong(lastLogTerm);
-            rawMsg.putBoolean(leaderTransfer);
-
-            rawMsg.flip();
-            rawReady = true;
-
-            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+            encodeRaw();
         }
     }
 
+    /**
+     * Compute encoded length
+     * @return total length including the length prefix
+     */
+    @Override
+    protected int frameLength()
+    {
+        length = Encoder.byteLen(ReqVoteReq.TYPE) +
+                 Encoder.varLongLen(term) +
+                 Encoder.varLongLen(lastLogIndex) +
+                 Encoder.varLongLen(lastLogTerm) +
+                 Encoder.booleanLen(leaderTransfer);
+
+        return length + Encoder.varIntLen(length);
+    }
+
+    /**
+     * Encode message into destination
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    @Override
+    protected void encodeFrame(Buffer dst)
+    {
+        dst.putVarInt(length);
+        dst.put(ReqVoteReq.TYPE);
+        dst.putVarLong(term);
+        dst.putVarLong(lastLogIndex);
+        dst.putVarLong(lastLogTerm);
+        dst.putBoolean(leaderTransfer);
+    }
+
     /**
      * Encode message
      */
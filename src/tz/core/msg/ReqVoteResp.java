@@ -74,29 +74,39 @@ public class ReqVoteResp extends Msg
     public void encode()
     {
         if (!rawReady) {
-            length = Encoder.byteLen(ReqVoteResp.TYPE) +
-                     Encoder.varLongLen(term) +
-                     Encoder.varLongLen(index) +
-                     Encoder.booleanLen(voteGranted);
-
-            if (rawMsg == null) {
-                rawMsg = new Buffer(length + Encoder.varIntLen(length));
-            }
-
-            rawMsg.clear();
-            rawMsg.putVarInt(length);
-            rawMsg.put(ReqVoteResp.TYPE);
-            rawMsg.putVarLong(term);
-            rawMsg.putVarLong(index);
-            rawMsg.putBoolean(voteGranted);
-
-            rawMsg.flip();
-            rawReady = true;
-
-            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+            encodeRaw();
         }
     }
 
+    /**
+     * Compute encoded length
+     * @return total length including the length prefix
+     */
+    @Override
+    protected int frameLength()
+    {
+        length = Encoder.byteLen(ReqVoteResp.TYPE) +
+                 Encoder.varLongLen(term) +
+                 Encoder.varLongLen(index) +
+                 Encoder.booleanLen(voteGranted);
+
+        return length + Encoder.varIntLen(length);
+    }
+
+    /**
+     * Encode message into destination
+     * @param dst destination with at least frameLength() bytes remaining
+     */
+    @Override
+    protected void encodeFrame(Buffer dst)
+    {
+        dst.putVarInt(length);
+        dst.put(ReqVoteResp.TYPE);
+        dst.putVarLong(term);
+        dst.putVarLong(index);
+        dst.putBoolean(voteGranted);
+    }
+
     /**
      * Decode message
      */
@@ -0,0 +1,118 @@
+package tz.core.msg;
+
+import tz.base.common.Buffer;
+
+/**
+ * TimeoutNow message
+ *
+ * Leader to transfer target, target starts an election immediately without
+ * waiting for its election timeout and skips pre-vote
+ */
+public class TimeoutNow extends Msg
+{
+    public static final int TYPE = 0x1A;
+
+    private long term;
+
+    /**
+     * Create new TimeoutNow message
+     * @param term leader's term
+     */
+    public TimeoutNow(long term)
+    {
+        this.term = term;
+    }
+
+    /**
+     * Create new TimeoutNow message
+     *
+     * @param buf raw encoded message
+     * @param len raw encoded length
+     */
+    public TimeoutNow(Buffer buf, int len)
+    {
+        super(buf, len);
+
+        decode();
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Get term
+     * @return term
+     */
+    public long getTerm()
+    {
+        return term;
+    }
+
+    /**
+     * Encode message
+     */
+    @Override
+    public void encode()
+    {
+        if (!rawReady) {
+            //Fixed length term, message must not be shorter than MIN_MSG_SIZE
+            length = Encoder.byteLen(TimeoutNow.TYPE) + Encoder.longLen(term);
+
+            if (rawMsg == null) {
+                rawMsg = new Buffer(length + Encoder.varIntLen(length));
+            }
+
+            rawMsg.clear();
+            rawMsg.putVarInt(length);
+            rawMsg.put(TimeoutNow.TYPE);
+            rawMsg.putLong(term);
+
+            rawMsg.flip();
+            rawReady = true;
+
+            assert (rawMsg.remaining() >= Msg.MIN_MSG_SIZE);
+        }
+    }
+
+    /**
+     * Decode message
+     */
+    @Override
+    public void decode()
+    {
+        term = rawMsg.getLong();
+
+        rawMsg.rewind();
+        rawReady = true;
+    }
+
+    /**
+     * Handle callback
+     * @param handler message handler
+     */
+    @Override
+    public void handle(MsgHandler handler)
+    {
+        handler.handleTimeoutNow(this);
+    }
+
+    /**
+     * toString
+     * @return string representation of the message
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(128);
+
+        builder.append(" [[TimeoutNow][")
+               .append("Term : ").append(term).append("]]");
+
+        return builder.toString();
+    }
+
+    @Override
+    public int getType()
+    {
+        return TYPE;
+    }
+}
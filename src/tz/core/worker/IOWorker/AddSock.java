@@ -0,0 +1,36 @@
+package tz.core.worker.IOWorker;
+
+import tz.base.poll.Event;
+import tz.base.transport.sock.Sock;
+
+/**
+ * Add sock event
+ *
+ * Hands an accepted socket over to the IO worker it is assigned to
+ */
+public class AddSock implements Event
+{
+    private final IOWorker worker;
+    private final Sock sock;
+
+    /**
+     * Create new AddSock event
+     *
+     * @param worker IO worker
+     * @param sock   accepted socket
+     */
+    public AddSock(IOWorker worker, Sock sock)
+    {
+        this.worker = worker;
+        this.sock   = sock;
+    }
+
+    /**
+     * Handle callback
+     */
+    @Override
+    public void onEvent()
+    {
+        worker.handleAddSock(sock);
+    }
+}
@@ -14,4 +14,6 @@ public interface IOOwner
 
     void sendIncomingMsg(Connection conn, Msg msg);
     void handleIncomingMsg(Connection conn, Msg msg);
+
+    IOWorker selectIoWorker();
 }
@@ -18,6 +18,7 @@ import tz.core.worker.Worker;
 import java.nio.channels.SelectionKey;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class IOWorker extends Worker implements ListenerOwner
 {
@@ -28,6 +29,9 @@ public class IOWorker extends Worker implements ListenerOwner
     private int count;
     private int outCount;
 
+    //Connections assigned to this worker, read by other threads to balance
+    private final AtomicInteger load;
+
     public IOWorker(IOOwner owner, Log log, String name)
     {
         super(log, name, true);
@@ -36,10 +40,58 @@ public class IOWorker extends Worker implements ListenerOwner
         listeners        = new ArrayList<>();
         connections      = new ArrayList<>();
         readyConnections = new HashSet<>();
+        load             = new AtomicInteger();
+    }
+
+    /**
+     * Create IO workers
+     *
+     * @param owner owner of the workers
+     * @param log   log
+     * @param name  name prefix of the workers
+     * @param count worker count, at least one worker is created
+     * @return      IO workers
+     */
+    public static IOWorker[] create(IOOwner owner, Log log, String name, int count)
+    {
+        IOWorker[] workers = new IOWorker[Math.max(1, count)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new IOWorker(owner, log, name + " IO Worker " + i);
+        }
+
+        return workers;
+    }
+
+    /**
+     * Select worker with the least connections, ties go to the first one
+     *
+     * @param workers IO workers
+     * @return        least loaded worker
+     */
+    public static IOWorker leastLoaded(IOWorker[] workers)
+    {
+        IOWorker selected = workers[0];
+        for (int i = 1; i < workers.length; i++) {
+            if (workers[i].getLoad() < selected.getLoad()) {
+                selected = workers[i];
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Get connection count of this worker, includes connections on the way
+     * @return connection count
+     */
+    public int getLoad()
+    {
+        return load.get();
     }
 
     public void addConnection(Connection conn)
     {
+        load.incrementAndGet();
         addEvent(new AddConnection(this, conn));
     }
 
@@ -57,7 +109,15 @@ public class IOWorker extends Worker implements ListenerOwner
     public void handleCancelConnection(Connection conn)
     {
         conn.disconnect(false);
-        connections.remove(conn);
+        removeConnection(conn);
+    }
+
+    private void removeConnection(Connection conn)
+    {
+        if (connections.remove(conn)) {
+            load.decrementAndGet();
+        }
+
         readyConnections.remove(conn);
     }
 
@@ -98,7 +158,20 @@ public class IOWorker extends Worker implements ListenerOwner
     {
         Deque<Msg> msgs = new ArrayDeque<>();
         msgs.add(msg);
-        count++;
+
+        addOutgoingMsgs(conn, msgs);
+    }
+
+    /**
+     * Add messages of a connection in a single event
+     *
+     * @param conn connection
+     * @param msgs messages in send order, owned by this worker afterwards
+     */
+    public void addOutgoingMsgs(Connection conn, Deque<Msg> msgs)
+    {
+        count += msgs.size();
+        conn.addQueued(msgs.size());
 
         poll.addEvent(new OutgoingMsg(this, conn, msgs));
     }
@@ -112,7 +185,9 @@ public class IOWorker extends Worker implements ListenerOwner
             readyConnections.add(conn);
         }
         else {
-            System.out.println("Weri2d");
+            for (Msg msg : msgs) {
+                msg.release();
+            }
         }
     }
 
@@ -137,13 +212,32 @@ public class IOWorker extends Worker implements ListenerOwner
             return;
         }
 
+        logInfo(listener.toString(), " accepted : ", sock);
+
+        //Accepted sockets are spread over the IO workers of the owner
+        IOWorker worker = owner.selectIoWorker();
+        worker.addSock(sock);
+    }
+
+    /**
+     * Assign an accepted socket to this worker
+     * @param sock accepted socket, not registered to any selector yet
+     */
+    public void addSock(Sock sock)
+    {
+        load.incrementAndGet();
+        addEvent(new AddSock(this, sock));
+    }
+
+    public void handleAddSock(Sock sock)
+    {
         try {
-            logInfo(listener.toString(), " accepted : ", sock);
             sock.register(poll.getSelector(), SelectionKey.OP_READ);
             sock.handshake();
         }
         catch (Exception e) {
             sock.close();
+            load.decrementAndGet();
             logInfo("Disconnected : ", sock.toString());
 
             return;
@@ -162,8 +256,7 @@ public class IOWorker extends Worker implements ListenerOwner
     {
         if (status == Connection.Status.DISCONNECTED ||
             status == Connection.Status.OUTGOING_FAILED) {
-            connections.remove(conn);
-            readyConnections.remove(conn);
+            removeConnection(conn);
         }
 
         logInfo("Connection ", conn, " status ", status);
@@ -4,6 +4,8 @@ import tz.base.log.*;
 import tz.base.poll.*;
 import tz.base.transport.sock.Sock;
 
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Abstract worker
@@ -29,6 +31,21 @@ public abstract class Worker implements Runnable, LogOwner, PollOwner
         this.poll   = ioWorker ? new SelectorPoll(this) : new Poll(this);
     }
 
+    /**
+     * Create new worker running on another worker's thread, it shares loop
+     * and timers of the host worker
+     * @param log  log object
+     * @param name worker name
+     * @param host worker owns the thread, if null, worker has its own thread
+     */
+    public Worker(Log log, String name, Worker host)
+    {
+        this.log    = log;
+        this.name   = name;
+        this.thread = host == null ? new Thread(this, name) : null;
+        this.poll   = host == null ? new Poll(this) : host.poll;
+    }
+
     public void stop()
     {
         stop = true;
@@ -133,6 +150,24 @@ public abstract class Worker implements Runnable, LogOwner, PollOwner
         poll.removeTimer(timer);
     }
 
+    /**
+     * Set timer implementation of the loop, must be called before start
+     * @param timer timer implementation
+     */
+    public void setTimer(Timer timer)
+    {
+        poll.setTimer(timer);
+    }
+
+    /**
+     * Set busy poll time of the loop before it blocks waiting for events
+     * @param spinTime spin time in microseconds, 0 disables spinning
+     */
+    public void setSpinTime(long spinTime)
+    {
+        poll.setSpinTime(TimeUnit.MICROSECONDS.toNanos(spinTime));
+    }
+
     /**
      * Register a socket to worker's loop
      * @param sock socket